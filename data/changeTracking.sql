@@ -0,0 +1,18 @@
+-- Change tracking for the incremental report refresh (DatabaseReader.refreshInvoices).
+--
+-- Every Invoice row carries the time it or one of its line items last changed,
+-- and every deleted invoice leaves a tombstone behind. InvoiceData keeps both up
+-- to date itself: triggers on InvoiceProduct can not update Invoice while the
+-- set-based DELETE ... JOIN statements that InvoiceData runs are reading it.
+
+ALTER TABLE Invoice
+	ADD COLUMN lastModified TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+CREATE INDEX Invoice_lastModified ON Invoice (lastModified);
+
+CREATE TABLE InvoiceTombstone (
+	invoiceKey INT NOT NULL PRIMARY KEY,
+	invoiceUuid VARCHAR(255) NOT NULL,
+	deletedAt TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+	KEY InvoiceTombstone_deletedAt (deletedAt)
+);
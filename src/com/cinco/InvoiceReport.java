@@ -9,18 +9,28 @@
 package com.cinco;
 
 import project.utils.DatabaseReader;
+import project.utils.InvoiceDataset;
+import project.utils.ReferenceDataRegistry;
+import project.utils.RepositoryFactory;
 
 public class InvoiceReport {
 
 	// This is the Driver class for the Program.
 	public static void main(String[] args) {
 
+		// States and countries never change during a run, so they are read once up front.
+		if (RepositoryFactory.usesDatabase()) {
+			ReferenceDataRegistry.load();
+		}
+
+		// The three summaries are sorted differently but built from one load of the invoices.
+		InvoiceDataset dataset = new InvoiceDataset();
 		System.out.println("BY CUSTOMER NAME");
-		DatabaseReader.getInvoiceDataList(1);
+		DatabaseReader.getInvoiceDataList(1, dataset);
 		System.out.println("BY INVOICE TOTAL");
-		DatabaseReader.getInvoiceDataList(2);
+		DatabaseReader.getInvoiceDataList(2, dataset);
 		System.out.println("BY CUSTOMER TYPE - SALESPERSON");
-		DatabaseReader.getInvoiceDataList(3);
+		DatabaseReader.getInvoiceDataList(3, dataset);
 
 	}
 }
@@ -0,0 +1,156 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class indexes the Address table by street, city and zip.
+ */
+package project.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+import project.utils.ConnectionFactory;
+
+/**
+ * An in-memory hash index of (street, city, zip) to addressKey, the same columns
+ * addAddress and findAddress look addresses up by. The whole Address table is
+ * read the first time the index is used, after that the add and remove methods
+ * of InvoiceDataHelper keep it up to date, so looking up an address no longer
+ * needs a query.
+ */
+public class AddressIndex {
+
+	public static final AddressIndex addresses = new AddressIndex();
+
+	private final Map<AddressKey, Integer> keys = new ConcurrentHashMap<AddressKey, Integer>();
+	private volatile boolean loaded = false;
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	// Returns the key of the address, or null if there is no such address.
+	public Integer getKey(String street, String city, String zip) {
+		ensureLoaded();
+		return keys.get(new AddressKey(street, city, zip));
+	}
+
+	/**
+	 * Returns the key of the address, calling insert to add it if it is not in
+	 * the index yet. The insert runs outside the map so no lookup waits on the
+	 * database. If two callers add the same address at once both insert it, the
+	 * first key put in the index wins and the other row is handed to discard,
+	 * so both callers get the same key and only one row is kept.
+	 *
+	 * @param street
+	 * @param city
+	 * @param zip
+	 * @param insert inserts the address and returns its new key
+	 * @param discard deletes a row that lost the race
+	 * @return the addressKey
+	 */
+	public int getOrInsert(String street, String city, String zip, IntSupplier insert, IntConsumer discard) {
+		ensureLoaded();
+		AddressKey address = new AddressKey(street, city, zip);
+		Integer key = keys.get(address);
+		if (key != null) {
+			return key;
+		}
+		int inserted = insert.getAsInt();
+		key = keys.putIfAbsent(address, inserted);
+		if (key == null) {
+			return inserted;
+		}
+		discard.accept(inserted);
+		return key;
+	}
+
+	public void remove(String street, String city, String zip) {
+		keys.remove(new AddressKey(street, city, zip));
+	}
+
+	// This method drops the index, it is read again from the database the next time it is used.
+	public synchronized void clear() {
+		loaded = false;
+		keys.clear();
+	}
+
+	public int size() {
+		return keys.size();
+	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	// This method reads every address into the index the first time it is needed.
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		synchronized (this) {
+			if (loaded) {
+				return;
+			}
+			Connection conn = ConnectionFactory.getConnection();
+			PreparedStatement ps = null;
+			ResultSet rs = null;
+
+			String query = "SELECT addressKey, street, city, zip FROM Address ORDER BY addressKey";
+
+			try {
+				ps = conn.prepareStatement(query);
+				rs = ps.executeQuery();
+				while (rs.next()) {
+					AddressKey address = new AddressKey(rs.getString("street"), rs.getString("city"),
+							rs.getString("zip"));
+					// Keep the lowest key if the table already holds duplicates.
+					keys.putIfAbsent(address, rs.getInt("addressKey"));
+				}
+				loaded = true;
+			} catch (SQLException e) {
+				System.out.println("SQLException: ");
+				e.printStackTrace();
+				throw new RuntimeException(e);
+			} finally {
+				ConnectionFactory.closeConnection(conn, ps, rs);
+			}
+		}
+	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	// The columns an address is identified by, compared without case like the database does.
+	private static class AddressKey {
+
+		private final String street;
+		private final String city;
+		private final String zip;
+
+		private AddressKey(String street, String city, String zip) {
+			this.street = street == null ? null : street.toLowerCase(Locale.ROOT);
+			this.city = city == null ? null : city.toLowerCase(Locale.ROOT);
+			this.zip = zip == null ? null : zip.toLowerCase(Locale.ROOT);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof AddressKey)) {
+				return false;
+			}
+			AddressKey other = (AddressKey) o;
+			return Objects.equals(street, other.street) && Objects.equals(city, other.city)
+					&& Objects.equals(zip, other.zip);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(street, city, zip);
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This object reports what a bulk write did and how fast it went.
+ */
+package project.database;
+
+public class BulkWriteResult {
+
+	private final int invoicesWritten;
+	private final int invoicesSkipped;
+	private final int lineItemsWritten;
+	private final int chunks;
+	private final long elapsedNanos;
+
+	public BulkWriteResult(int invoicesWritten, int invoicesSkipped, int lineItemsWritten, int chunks,
+			long elapsedNanos) {
+		this.invoicesWritten = invoicesWritten;
+		this.invoicesSkipped = invoicesSkipped;
+		this.lineItemsWritten = lineItemsWritten;
+		this.chunks = chunks;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public int getInvoicesWritten() {
+		return invoicesWritten;
+	}
+
+	// Invoices that were already in the database and were left untouched.
+	public int getInvoicesSkipped() {
+		return invoicesSkipped;
+	}
+
+	public int getLineItemsWritten() {
+		return lineItemsWritten;
+	}
+
+	// Number of transactions the write was split into.
+	public int getChunks() {
+		return chunks;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	// Invoice and InvoiceProduct rows inserted per second.
+	public double getRowsPerSecond() {
+		if (elapsedNanos == 0) {
+			return 0.0;
+		}
+		return (invoicesWritten + lineItemsWritten) / (elapsedNanos / 1000000000.0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Wrote %d invoices and %d line items (%d skipped) in %d chunks, %.1fms, %.0f rows/sec",
+				invoicesWritten, lineItemsWritten, invoicesSkipped, chunks, elapsedNanos / 1000000.0,
+				getRowsPerSecond());
+	}
+
+}
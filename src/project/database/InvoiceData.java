@@ -10,6 +10,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import project.utils.ConnectionFactory;
 
@@ -20,7 +29,10 @@ import project.utils.ConnectionFactory;
  */
 public class InvoiceData {
 
-	private static InvoiceDataHelper helper;
+	private static InvoiceDataHelper helper = new InvoiceDataHelper();
+
+	// Number of invoices written per transaction by the bulk invoice API.
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
 
 	/**
 	 * Method that removes every person record from the database
@@ -41,6 +53,7 @@ public class InvoiceData {
 		try {
 			ps = conn.prepareStatement(query);
 			ps.executeUpdate();
+			KeyCache.persons.clear();
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -55,36 +68,57 @@ public class InvoiceData {
 
 	/**
 	 * Removes the person record from the database corresponding to the provided
-	 * <code>personUuid</code>
+	 * <code>personUuid</code>, along with everything that references it.
 	 * 
 	 * @param personUuid
 	 */
 	public static void removePerson(String personUuid) {
-		int personKey = helper.findPerson(personUuid);
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// First remove any references to this Person instance.
-		helper.removeInvoiceByPersonKey(personKey);
-		helper.removeCustomerByPersonKey(personKey);
-		helper.removeProductByPersonKey(personKey);
-		removeEmail(personUuid);
+		removePersons(Collections.singletonList(personUuid));
+	}
 
-		// Query to delete a person based on the given personUuid.
-		String query = "DELETE FROM Person WHERE personUuid = ?";
+//-------------------------------------------------------------------------------------------------------------------
 
-		try {
-			ps = conn.prepareStatement(query);
-			ps.setString(1, personUuid);
-			ps.executeUpdate();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections that were opened up in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+	/**
+	 * Removes the person records corresponding to the provided UUIDs in one
+	 * transaction. The invoices they sold or whose customer they are the primary
+	 * contact of, those customers, the consultations they give and their emails
+	 * are removed first, each with one set-based delete.
+	 * 
+	 * @param personUuids
+	 */
+	public static void removePersons(List<String> personUuids) {
+		removeCascade(personUuids,
+				// Leave tombstones for the invoices being removed, and mark the invoices that lose a
+				// consultation line item as changed.
+				"REPLACE INTO InvoiceTombstone (invoiceKey, invoiceUuid) SELECT i.invoiceKey, i.invoiceUuid "
+						+ "FROM Invoice i JOIN Person p ON i.personKey = p.personKey WHERE p.personUuid",
+				"REPLACE INTO InvoiceTombstone (invoiceKey, invoiceUuid) SELECT i.invoiceKey, i.invoiceUuid "
+						+ "FROM Invoice i JOIN Customer c ON i.customerKey = c.customerKey "
+						+ "JOIN Person p ON c.personKey = p.personKey WHERE p.personUuid",
+				"UPDATE Invoice i JOIN InvoiceProduct ip ON ip.invoiceKey = i.invoiceKey "
+						+ "JOIN Product pr ON ip.productKey = pr.productKey JOIN Person p ON pr.personKey = p.personKey "
+						+ "SET i.lastModified = CURRENT_TIMESTAMP(3) WHERE p.personUuid",
+				// Line items of the invoices being removed, and of the consultations being removed.
+				"DELETE ip FROM InvoiceProduct ip JOIN Invoice i ON ip.invoiceKey = i.invoiceKey "
+						+ "JOIN Person p ON i.personKey = p.personKey WHERE p.personUuid",
+				"DELETE ip FROM InvoiceProduct ip JOIN Invoice i ON ip.invoiceKey = i.invoiceKey "
+						+ "JOIN Customer c ON i.customerKey = c.customerKey JOIN Person p ON c.personKey = p.personKey "
+						+ "WHERE p.personUuid",
+				"DELETE ip FROM InvoiceProduct ip JOIN Product pr ON ip.productKey = pr.productKey "
+						+ "JOIN Person p ON pr.personKey = p.personKey WHERE p.personUuid",
+				"DELETE i FROM Invoice i JOIN Person p ON i.personKey = p.personKey WHERE p.personUuid",
+				"DELETE i FROM Invoice i JOIN Customer c ON i.customerKey = c.customerKey "
+						+ "JOIN Person p ON c.personKey = p.personKey WHERE p.personUuid",
+				"DELETE c FROM Customer c JOIN Person p ON c.personKey = p.personKey WHERE p.personUuid",
+				"DELETE pr FROM Product pr JOIN Person p ON pr.personKey = p.personKey WHERE p.personUuid",
+				"DELETE e FROM Email e JOIN Person p ON e.personKey = p.personKey WHERE p.personUuid",
+				"DELETE FROM Person WHERE personUuid");
+		// The dependent rows were removed without reading their UUIDs, so drop those caches entirely.
+		KeyCache.invoices.clear();
+		KeyCache.customers.clear();
+		KeyCache.products.clear();
+		for (String personUuid : personUuids) {
+			KeyCache.persons.removeUuid(personUuid);
 		}
 	}
 
@@ -120,15 +154,23 @@ public class InvoiceData {
 			// "if" executes if the above query does not find a person.
 			if (!rs.next()) {
 				// creates an address to put into the person
-				int addressKey = helper.addAddress(street, city, zip, stateName, countryName);
+				int addressKey = helper.addAddress(street, city, stateName, zip, countryName);
 				// Inserts into the person table based on the given data.
 				String insertPerson = "INSERT INTO Person (personUuid, firstName, lastName, addressKey) values (?, ?, ?, ?)";
-				ps = conn.prepareStatement(insertPerson);
+				ps = conn.prepareStatement(insertPerson, Statement.RETURN_GENERATED_KEYS);
 				ps.setString(1, personUuid);
 				ps.setString(2, firstName);
 				ps.setString(3, lastName);
 				ps.setInt(4, addressKey);
 				ps.executeUpdate();
+				rs.close();
+				// Remember the key the new person was given.
+				rs = ps.getGeneratedKeys();
+				if (rs.next()) {
+					KeyCache.persons.put(personUuid, rs.getInt(1));
+				}
+			} else {
+				KeyCache.persons.put(personUuid, rs.getInt("personKey"));
 			}
 			rs.close();
 			ps.close();
@@ -257,6 +299,7 @@ public class InvoiceData {
 		try {
 			ps = conn.prepareStatement(query);
 			ps.executeUpdate();
+			KeyCache.customers.clear();
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -271,34 +314,33 @@ public class InvoiceData {
 
 	/**
 	 * Removes a particular customer record from the database corresponding to the
-	 * provided <code>customerUuid</code>
+	 * provided <code>customerUuid</code>, along with its invoices.
 	 * 
 	 * @param customerUuid
 	 */
 	public static void removeCustomer(String customerUuid) {
-		int customerKey = helper.findCustomer(customerUuid);
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Must first remove any Customers that reference this person.
-		helper.removeInvoiceByCustomerKey(customerKey);
+		removeCustomers(Collections.singletonList(customerUuid));
+	}
 
-		// Query to delete the data from a Customer instance in the database based on
-		// the customerUuid.
-		String query = "DELETE FROM Customer WHERE customerUuid = ?";
+//-------------------------------------------------------------------------------------------------------------------
 
-		try {
-			ps = conn.prepareStatement(query);
-			ps.setString(1, customerUuid);
-			ps.executeUpdate();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections that were opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+	/**
+	 * Removes the customer records corresponding to the provided UUIDs and their
+	 * invoices in one transaction.
+	 * 
+	 * @param customerUuids
+	 */
+	public static void removeCustomers(List<String> customerUuids) {
+		removeCascade(customerUuids,
+				"REPLACE INTO InvoiceTombstone (invoiceKey, invoiceUuid) SELECT i.invoiceKey, i.invoiceUuid "
+						+ "FROM Invoice i JOIN Customer c ON i.customerKey = c.customerKey WHERE c.customerUuid",
+				"DELETE ip FROM InvoiceProduct ip JOIN Invoice i ON ip.invoiceKey = i.invoiceKey "
+						+ "JOIN Customer c ON i.customerKey = c.customerKey WHERE c.customerUuid",
+				"DELETE i FROM Invoice i JOIN Customer c ON i.customerKey = c.customerKey WHERE c.customerUuid",
+				"DELETE FROM Customer WHERE customerUuid");
+		KeyCache.invoices.clear();
+		for (String customerUuid : customerUuids) {
+			KeyCache.customers.removeUuid(customerUuid);
 		}
 	}
 
@@ -324,7 +366,7 @@ public class InvoiceData {
 		// find the primaryContactKey to put into the new customer.
 		int primaryContactKey = helper.findPerson(personUuid);
 		// add the new address to the database to use its key in the new customer.
-		int addressKey = helper.addAddress(street, city, zip, stateName, countryName);
+		int addressKey = helper.addAddress(street, city, stateName, zip, countryName);
 
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
@@ -343,13 +385,21 @@ public class InvoiceData {
 			if (!rs.next()) {
 				// Query to insert a customer into the database.
 				String insertCustomer = "INSERT INTO Customer (customerUuid, customerType, personKey, customerName, addressKey) values (?, ?, ?, ?, ?)";
-				ps = conn.prepareStatement(insertCustomer);
+				ps = conn.prepareStatement(insertCustomer, Statement.RETURN_GENERATED_KEYS);
 				ps.setString(1, customerUuid);
 				ps.setString(2, customerType);
 				ps.setInt(3, primaryContactKey);
 				ps.setString(4, customerName);
 				ps.setInt(5, addressKey);
 				ps.executeUpdate();
+				rs.close();
+				// Remember the key the new customer was given.
+				rs = ps.getGeneratedKeys();
+				if (rs.next()) {
+					KeyCache.customers.put(customerUuid, rs.getInt(1));
+				}
+			} else {
+				KeyCache.customers.put(customerUuid, rs.getInt("customerKey"));
 			}
 			rs.close();
 			ps.close();
@@ -380,6 +430,7 @@ public class InvoiceData {
 		try {
 			ps = conn.prepareStatement(query);
 			ps.executeUpdate();
+			KeyCache.products.clear();
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -396,29 +447,29 @@ public class InvoiceData {
 	 * Removes a particular product record from the database corresponding to the
 	 * provided <code>productUuid</code>
 	 * 
-	 * @param assetCode
+	 * @param productUuid
 	 */
 	public static void removeProduct(String productUuid) {
-		// First have to remove the corresponding InvoiceProducts.
-		helper.removeInvoiceProductOnProduct(productUuid);
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
+		removeProducts(Collections.singletonList(productUuid));
+	}
 
-		// Query to delete a product instance from the product table
-		String query = "DELETE FROM Product WHERE productUuid = ?";
+//-------------------------------------------------------------------------------------------------------------------
 
-		try {
-			ps = conn.prepareStatement(query);
-			ps.setString(1, productUuid);
-			ps.executeUpdate();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+	/**
+	 * Removes the product records corresponding to the provided UUIDs, and the
+	 * invoice line items that use them, in one transaction.
+	 * 
+	 * @param productUuids
+	 */
+	public static void removeProducts(List<String> productUuids) {
+		removeCascade(productUuids,
+				"UPDATE Invoice i JOIN InvoiceProduct ip ON ip.invoiceKey = i.invoiceKey "
+						+ "JOIN Product p ON ip.productKey = p.productKey "
+						+ "SET i.lastModified = CURRENT_TIMESTAMP(3) WHERE p.productUuid",
+				"DELETE ip FROM InvoiceProduct ip JOIN Product p ON ip.productKey = p.productKey WHERE p.productUuid",
+				"DELETE FROM Product WHERE productUuid");
+		for (String productUuid : productUuids) {
+			KeyCache.products.removeUuid(productUuid);
 		}
 	}
 
@@ -451,12 +502,20 @@ public class InvoiceData {
 			if (!rs.next()) {
 				// Query to insert the new Equipment into the database.
 				String insertEquipment = "INSERT INTO Product (productUuid, productType, productName, pricePerUnit) values (?, ?, ?, ?)";
-				ps = conn.prepareStatement(insertEquipment);
+				ps = conn.prepareStatement(insertEquipment, Statement.RETURN_GENERATED_KEYS);
 				ps.setString(1, productUuid);
 				ps.setString(2, "E");
 				ps.setString(3, productName);
 				ps.setDouble(4, pricePerUnit);
 				ps.executeUpdate();
+				rs.close();
+				// Remember the key the new product was given.
+				rs = ps.getGeneratedKeys();
+				if (rs.next()) {
+					KeyCache.products.put(productUuid, rs.getInt(1));
+				}
+			} else {
+				KeyCache.products.put(productUuid, rs.getInt("productKey"));
 			}
 			rs.close();
 			ps.close();
@@ -499,13 +558,21 @@ public class InvoiceData {
 			if (!rs.next()) {
 				// Query to insert the new License into the database.
 				String insertLicense = "INSERT INTO Product (productUuid, productType, productName, serviceFee, annualLicenseFee) values (?, ?, ?, ?, ?)";
-				ps = conn.prepareStatement(insertLicense);
+				ps = conn.prepareStatement(insertLicense, Statement.RETURN_GENERATED_KEYS);
 				ps.setString(1, productUuid);
 				ps.setString(2, "L");
 				ps.setString(3, productName);
 				ps.setDouble(4, serviceFee);
 				ps.setDouble(5, annualLicenseFee);
 				ps.executeUpdate();
+				rs.close();
+				// Remember the key the new product was given.
+				rs = ps.getGeneratedKeys();
+				if (rs.next()) {
+					KeyCache.products.put(productUuid, rs.getInt(1));
+				}
+			} else {
+				KeyCache.products.put(productUuid, rs.getInt("productKey"));
 			}
 			rs.close();
 			ps.close();
@@ -549,13 +616,21 @@ public class InvoiceData {
 				int consultantPersonKey = helper.findPerson(personUuid);
 				// Query to insert a new Consultation Product into the database.
 				String insertConsultation = "INSERT INTO Product (productUuid, productType, productName, personKey, hourlyFee) values (?, ?, ?, ?, ?)";
-				ps = conn.prepareStatement(insertConsultation);
+				ps = conn.prepareStatement(insertConsultation, Statement.RETURN_GENERATED_KEYS);
 				ps.setString(1, productUuid);
 				ps.setString(2, "C");
 				ps.setString(3, productName);
 				ps.setInt(4, consultantPersonKey);
 				ps.setDouble(5, hourlyFee);
 				ps.executeUpdate();
+				rs.close();
+				// Remember the key the new product was given.
+				rs = ps.getGeneratedKeys();
+				if (rs.next()) {
+					KeyCache.products.put(productUuid, rs.getInt(1));
+				}
+			} else {
+				KeyCache.products.put(productUuid, rs.getInt("productKey"));
 			}
 			rs.close();
 			ps.close();
@@ -574,9 +649,6 @@ public class InvoiceData {
 	 * Removes all invoice records from the database
 	 */
 	public static void removeAllInvoices() {
-		// must remove invoiceProducts first
-		helper.removeAllInvoiceProducts();
-
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
@@ -585,8 +657,28 @@ public class InvoiceData {
 		String query = "DELETE FROM Invoice";
 
 		try {
-			ps = conn.prepareStatement(query);
-			ps.executeUpdate();
+			// The tombstones and the deletes are one transaction, so an invoice added in between can
+			// not be deleted without a tombstone and linger in incrementally refreshed datasets.
+			conn.setAutoCommit(false);
+			try {
+				// Leave a tombstone for every invoice so incremental refreshes drop them.
+				ps = conn.prepareStatement("REPLACE INTO InvoiceTombstone (invoiceKey, invoiceUuid) "
+						+ "SELECT invoiceKey, invoiceUuid FROM Invoice");
+				ps.executeUpdate();
+				ps.close();
+				// must remove invoiceProducts first
+				ps = conn.prepareStatement("DELETE FROM InvoiceProduct");
+				ps.executeUpdate();
+				ps.close();
+				ps = conn.prepareStatement(query);
+				ps.executeUpdate();
+				conn.commit();
+			} catch (SQLException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			}
+			conn.setAutoCommit(true);
+			KeyCache.invoices.clear();
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -606,27 +698,57 @@ public class InvoiceData {
 	 * @param invoiceUuid
 	 */
 	public static void removeInvoice(String invoiceUuid) {
-		// remove the InvoiceProduct that corresponds with the given invoiceUuid.
-		helper.removeInvoiceProductOnInvoice(invoiceUuid);
+		removeInvoices(Collections.singletonList(invoiceUuid));
+	}
 
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
+//-------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Removes the invoice records corresponding to the provided UUIDs and their
+	 * line items in one transaction.
+	 * 
+	 * @param invoiceUuids
+	 */
+	public static void removeInvoices(List<String> invoiceUuids) {
+		removeCascade(invoiceUuids,
+				"REPLACE INTO InvoiceTombstone (invoiceKey, invoiceUuid) SELECT invoiceKey, invoiceUuid FROM Invoice "
+						+ "WHERE invoiceUuid",
+				"DELETE ip FROM InvoiceProduct ip JOIN Invoice i ON ip.invoiceKey = i.invoiceKey WHERE i.invoiceUuid",
+				"DELETE FROM Invoice WHERE invoiceUuid");
+		for (String invoiceUuid : invoiceUuids) {
+			KeyCache.invoices.removeUuid(invoiceUuid);
+		}
+	}
 
-		// Query to delete an Invoice instance from the database on a given invoiceUuid.
-		String query = "DELETE FROM Invoice WHERE invoiceUuid = ?";
+//-------------------------------------------------------------------------------------------------------------------
+
+	// This method runs the statements in order for all the given UUIDs as one transaction, so a
+	// failure part way through leaves the database as it was.
+	private static void removeCascade(List<String> uuids, String... deletes) {
+		if (uuids.isEmpty()) {
+			return;
+		}
+		Connection conn = ConnectionFactory.getConnection();
 
 		try {
-			ps = conn.prepareStatement(query);
-			ps.setString(1, invoiceUuid);
-			ps.executeUpdate();
+			conn.setAutoCommit(false);
+			try {
+				for (String delete : deletes) {
+					InvoiceDataHelper.deleteByUuids(conn, delete, uuids);
+				}
+				conn.commit();
+			} catch (SQLException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			}
+			conn.setAutoCommit(true);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
 			throw new RuntimeException(e);
 		} finally {
-			// Close all the connections that were opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+			// Close the connection, which also resets it if the deletes failed.
+			ConnectionFactory.closeConnection(conn, null, null);
 		}
 	}
 
@@ -659,11 +781,19 @@ public class InvoiceData {
 				int salesPersonKey = helper.findPerson(personUuid);
 				// Query to insert a new Invoice instance into the database.
 				String insertInvoice = "INSERT INTO Invoice (invoiceUuid, customerKey, personKey) values (?, ?, ?)";
-				ps = conn.prepareStatement(insertInvoice);
+				ps = conn.prepareStatement(insertInvoice, Statement.RETURN_GENERATED_KEYS);
 				ps.setString(1, invoiceUuid);
 				ps.setInt(2, customerKey);
 				ps.setInt(3, salesPersonKey);
 				ps.executeUpdate();
+				rs.close();
+				// Remember the key the new invoice was given.
+				rs = ps.getGeneratedKeys();
+				if (rs.next()) {
+					KeyCache.invoices.put(invoiceUuid, rs.getInt(1));
+				}
+			} else {
+				KeyCache.invoices.put(invoiceUuid, rs.getInt("invoiceKey"));
 			}
 			rs.close();
 			ps.close();
@@ -706,6 +836,7 @@ public class InvoiceData {
 			ps.setInt(2, productKey);
 			ps.setInt(3, numberOfUnits);
 			ps.executeUpdate();
+			InvoiceDataHelper.touchInvoice(conn, invoiceKey);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -744,6 +875,7 @@ public class InvoiceData {
 			ps.setString(3, effectiveBeginDate);
 			ps.setString(4, effectiveEndDate);
 			ps.executeUpdate();
+			InvoiceDataHelper.touchInvoice(conn, invoiceKey);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -784,6 +916,7 @@ public class InvoiceData {
 			ps.setInt(2, productKey);
 			ps.setDouble(3, billableHours);
 			ps.executeUpdate();
+			InvoiceDataHelper.touchInvoice(conn, invoiceKey);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -793,4 +926,177 @@ public class InvoiceData {
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
 	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds many invoices and their line items to the database, in transactions of
+	 * {@link #DEFAULT_CHUNK_SIZE} invoices.
+	 * 
+	 * @param invoices
+	 * @return the rows written and the rate they were written at
+	 */
+	public static BulkWriteResult addInvoices(List<InvoiceRecord> invoices) {
+		return addInvoices(invoices, DEFAULT_CHUNK_SIZE);
+	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds many invoices and their line items to the database. Customer, person
+	 * and product keys are resolved once per chunk, the Invoice and InvoiceProduct
+	 * rows are inserted with JDBC batches, and each chunk is committed as one
+	 * transaction so a failure rolls back only the chunk it happened in. Invoices
+	 * that are already in the database are skipped along with their line items,
+	 * so an import can safely be run again.
+	 * 
+	 * @param invoices
+	 * @param chunkSize number of invoices per transaction
+	 * @return the rows written and the rate they were written at
+	 */
+	public static BulkWriteResult addInvoices(List<InvoiceRecord> invoices, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize);
+		}
+		long start = System.nanoTime();
+		int invoicesWritten = 0;
+		int lineItemsWritten = 0;
+		int chunks = 0;
+		Connection conn = ConnectionFactory.getConnection();
+
+		try {
+			conn.setAutoCommit(false);
+			for (int from = 0; from < invoices.size(); from += chunkSize) {
+				List<InvoiceRecord> chunk = invoices.subList(from, Math.min(from + chunkSize, invoices.size()));
+				Map<String, Integer> newInvoiceKeys = new HashMap<String, Integer>();
+				try {
+					int[] written = addInvoiceChunk(conn, chunk, newInvoiceKeys);
+					conn.commit();
+					// Only cache the new keys once they are committed.
+					KeyCache.invoices.putAll(newInvoiceKeys);
+					invoicesWritten += written[0];
+					lineItemsWritten += written[1];
+					chunks++;
+				} catch (SQLException | RuntimeException e) {
+					conn.rollback();
+					throw e;
+				}
+			}
+			conn.setAutoCommit(true);
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			// Close the connection, which also resets it if a chunk failed.
+			ConnectionFactory.closeConnection(conn, null, null);
+		}
+		return new BulkWriteResult(invoicesWritten, invoices.size() - invoicesWritten, lineItemsWritten, chunks,
+				System.nanoTime() - start);
+	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	// This method writes one chunk of invoices and returns {invoices written, line items written}.
+	// The keys given to the new invoices are put into newInvoiceKeys.
+	private static int[] addInvoiceChunk(Connection conn, List<InvoiceRecord> chunk,
+			Map<String, Integer> newInvoiceKeys) throws SQLException {
+		// Collect every UUID the chunk refers to, keeping only the first record for each invoice.
+		Map<String, InvoiceRecord> records = new LinkedHashMap<String, InvoiceRecord>();
+		Set<String> customerUuids = new LinkedHashSet<String>();
+		Set<String> personUuids = new LinkedHashSet<String>();
+		Set<String> productUuids = new LinkedHashSet<String>();
+		for (InvoiceRecord record : chunk) {
+			if (records.putIfAbsent(record.getInvoiceUuid(), record) == null) {
+				customerUuids.add(record.getCustomerUuid());
+				personUuids.add(record.getPersonUuid());
+				for (InvoiceRecord.LineItem item : record.getLineItems()) {
+					productUuids.add(item.getProductUuid());
+				}
+			}
+		}
+
+		// Resolve every key with one query per table. Whether an invoice is already there is always
+		// asked of the database in this transaction, a stale cache entry would skip it for good.
+		Map<String, Integer> existingInvoices = InvoiceDataHelper.findKeys(conn, "Invoice", "invoiceUuid",
+				"invoiceKey", records.keySet());
+		for (String invoiceUuid : records.keySet()) {
+			if (!existingInvoices.containsKey(invoiceUuid) && KeyCache.invoices.getKey(invoiceUuid) != null) {
+				KeyCache.invoices.removeUuid(invoiceUuid);
+			}
+		}
+		Map<String, Integer> customerKeys = InvoiceDataHelper.findKeys(conn, KeyCache.customers, "Customer",
+				"customerUuid", "customerKey", customerUuids);
+		Map<String, Integer> personKeys = InvoiceDataHelper.findKeys(conn, KeyCache.persons, "Person", "personUuid",
+				"personKey", personUuids);
+		Map<String, Integer> productKeys = InvoiceDataHelper.findKeys(conn, KeyCache.products, "Product",
+				"productUuid", "productKey", productUuids);
+		records.keySet().removeAll(existingInvoices.keySet());
+		if (records.isEmpty()) {
+			return new int[] { 0, 0 };
+		}
+
+		// Insert the invoices in one batch.
+		String insertInvoice = "INSERT INTO Invoice (invoiceUuid, customerKey, personKey) values (?, ?, ?)";
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement(insertInvoice);
+			for (InvoiceRecord record : records.values()) {
+				ps.setString(1, record.getInvoiceUuid());
+				ps.setInt(2, requireKey(customerKeys, record.getCustomerUuid(), "customer"));
+				ps.setInt(3, requireKey(personKeys, record.getPersonUuid(), "person"));
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		} finally {
+			ConnectionFactory.closeConnection(ps, null);
+		}
+
+		// Look up the keys the new invoices were given, then insert every line item in one batch.
+		Map<String, Integer> invoiceKeys = InvoiceDataHelper.findKeys(conn, "Invoice", "invoiceUuid", "invoiceKey",
+				records.keySet());
+		String insertLineItem = "INSERT INTO InvoiceProduct (invoiceKey, productKey, numberOfUnits, billableHours, "
+				+ "effectiveBeginDate, effectiveEndDate) values (?, ?, ?, ?, ?, ?)";
+		newInvoiceKeys.putAll(invoiceKeys);
+		int lineItems = 0;
+		try {
+			ps = conn.prepareStatement(insertLineItem);
+			for (InvoiceRecord record : records.values()) {
+				int invoiceKey = requireKey(invoiceKeys, record.getInvoiceUuid(), "invoice");
+				for (InvoiceRecord.LineItem item : record.getLineItems()) {
+					ps.setInt(1, invoiceKey);
+					ps.setInt(2, requireKey(productKeys, item.getProductUuid(), "product"));
+					if (item.getNumberOfUnits() != null) {
+						ps.setInt(3, item.getNumberOfUnits());
+					} else {
+						ps.setNull(3, Types.INTEGER);
+					}
+					if (item.getBillableHours() != null) {
+						ps.setDouble(4, item.getBillableHours());
+					} else {
+						ps.setNull(4, Types.DOUBLE);
+					}
+					ps.setString(5, item.getEffectiveBeginDate());
+					ps.setString(6, item.getEffectiveEndDate());
+					ps.addBatch();
+					lineItems++;
+				}
+			}
+			if (lineItems > 0) {
+				ps.executeBatch();
+			}
+		} finally {
+			ConnectionFactory.closeConnection(ps, null);
+		}
+		return new int[] { records.size(), lineItems };
+	}
+
+	// Returns the key for the given uuid, failing the chunk if the row does not exist.
+	private static int requireKey(Map<String, Integer> keys, String uuid, String type) {
+		Integer key = keys.get(uuid);
+		if (key == null) {
+			throw new IllegalStateException("No such " + type + " in database with uuid = " + uuid);
+		}
+		return key;
+	}
 }
@@ -10,6 +10,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import project.utils.ConnectionFactory;
 
@@ -205,103 +211,86 @@ public class InvoiceDataHelper {
 //-------------------------------------------------------------------------------------------------------------------
 
 	/**
-	 * Method to add address record to database with the provided data.
+	 * Method to add address record to database with the provided data. The
+	 * address is looked up in the AddressIndex and only inserted if it is not
+	 * there yet.
 	 * 
 	 * @param street
 	 * @param city
-	 * @param zip
 	 * @param stateName
+	 * @param zip
 	 * @param countryName
+	 * @return the addressKey of the new or existing address
 	 */
 	public int addAddress(String street, String city, String stateName, String zip, String countryName) {
+		return AddressIndex.addresses.getOrInsert(street, city, zip,
+				() -> insertAddress(street, city, stateName, zip, countryName), this::deleteAddress);
+	}
+
+	// This method inserts the address without checking for it first and returns its new key.
+	private int insertAddress(String street, String city, String stateName, String zip, String countryName) {
 		int addressKey = -1;
+		int stateKey = addState(stateName, countryName);
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
-		// This query selects the addressKey based on given parameters.
-		String query = "SELECT addressKey FROM Address WHERE street = ? AND city = ? AND zip = ?";
+		// This query is to insert a new address based on the given parameters
+		String insertAddress = "INSERT INTO Address (street, city, stateKey, zip) values (?, ?, ?, ?)";
 
 		try {
-			ps = conn.prepareStatement(query);
-			// give the appropriate variables for above query.
+			ps = conn.prepareStatement(insertAddress, Statement.RETURN_GENERATED_KEYS);
 			ps.setString(1, street);
 			ps.setString(2, city);
-			ps.setString(3, zip);
-			rs = ps.executeQuery();
-			// "if" is true when there is no address currently in the DB by the given
-			// parameters.
-			if (!rs.next()) {
-				int stateKey = addState(stateName, countryName);
-				// This query is to insert a new address based on the previously given
-				// parameters
-				String insertAddress = "INSERT INTO Address (street, city, stateKey, zip) values (?, ?, ?, ?)";
-
-				ps = conn.prepareStatement(insertAddress);
-				ps.setString(1, street);
-				ps.setString(2, city);
-				ps.setInt(3, stateKey);
-				ps.setString(4, zip);
-				ps.executeUpdate();
-				// This gets the last inserted id from the data base which is the new address
-				ps = conn.prepareStatement("SELECT LAST_INSERT_ID()");
-				rs = ps.executeQuery();
-				rs.next();
-				addressKey = rs.getInt("LAST_INSERT_ID()");
-			} else {
-				// returns the addressKey of the given address since it is already in the
-				// database.
-				addressKey = rs.getInt("addressKey");
-			}
-			rs.close();
-			ps.close();
+			ps.setInt(3, stateKey);
+			ps.setString(4, zip);
+			ps.executeUpdate();
+			rs = ps.getGeneratedKeys();
+			rs.next();
+			addressKey = rs.getInt(1);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
 			throw new RuntimeException(e);
+		} finally {
+			// Close the connections made to the database
+			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
-		// Close the connections made to the database
-		ConnectionFactory.closeConnection(conn, ps, rs);
 		return addressKey;
 	}
 
-// -------------------------------------------------------------------------------------------------------------------
-
-	/**
-	 * Method to find a person and return the personKey
-	 * 
-	 * @param personUuid
-	 * @return corresponding addressKey
-	 */
-	public static int findAddress(String street, String city, String zip) {
-		int addressKey = -1;
+	// This method deletes an address row nothing refers to yet, e.g. a duplicate insert.
+	private void deleteAddress(int addressKey) {
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
-		ResultSet rs = null;
 
-		// Query is used to get an addressKey by the given street, city, and zipCode.
-		String query = "SELECT addressKey FROM Address WHERE street = ? AND city = ? AND zip = ?";
+		String query = "DELETE FROM Address WHERE addressKey = ?";
 
 		try {
 			ps = conn.prepareStatement(query);
-			ps.setString(1, street);
-			ps.setString(2, city);
-			ps.setString(3, zip);
-			rs = ps.executeQuery();
-			// "if" is true if the query above successfully gets a specified address from
-			// the DB
-			if (rs.next()) {
-				addressKey = rs.getInt("addressKey");
-			}
+			ps.setInt(1, addressKey);
+			ps.executeUpdate();
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
 			throw new RuntimeException(e);
 		} finally {
-			// Close the connections made to the database
-			ConnectionFactory.closeConnection(conn, ps, rs);
+			ConnectionFactory.closeConnection(conn, ps, null);
 		}
-		return addressKey;
+	}
+
+// -------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Method to find a person and return the personKey
+	 * 
+	 * @param personUuid
+	 * @return corresponding addressKey
+	 */
+	public static int findAddress(String street, String city, String zip) {
+		// The address index answers without a query.
+		Integer addressKey = AddressIndex.addresses.getKey(street, city, zip);
+		return addressKey == null ? -1 : addressKey;
 	}
 
 //-------------------------------------------------------------------------------------------------------------------	
@@ -409,6 +398,7 @@ public class InvoiceDataHelper {
 			ps = conn.prepareStatement(query);
 			ps.setInt(1, addressKey);
 			ps.executeUpdate();
+			AddressIndex.addresses.remove(street, city, zip);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
@@ -428,6 +418,11 @@ public class InvoiceDataHelper {
 	 * @return corresponding personKey
 	 */
 	public int findPerson(String personUuid) {
+		// Check the key cache before going to the database.
+		Integer cachedKey = KeyCache.persons.getKey(personUuid);
+		if (cachedKey != null) {
+			return cachedKey;
+		}
 		int personKey = -1;
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
@@ -445,6 +440,7 @@ public class InvoiceDataHelper {
 			if (rs.next()) {
 				// if person is found, return the key.
 				personKey = rs.getInt("personKey");
+				KeyCache.persons.put(personUuid, personKey);
 			}
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
@@ -466,6 +462,11 @@ public class InvoiceDataHelper {
 	 * @return corresponding customerKey
 	 */
 	public int findCustomer(String customerUuid) {
+		// Check the key cache before going to the database.
+		Integer cachedKey = KeyCache.customers.getKey(customerUuid);
+		if (cachedKey != null) {
+			return cachedKey;
+		}
 		int customerKey = -1;
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
@@ -481,6 +482,7 @@ public class InvoiceDataHelper {
 			// "if" executes if the above query finds a customer.
 			if (rs.next()) {
 				customerKey = rs.getInt("customerKey");
+				KeyCache.customers.put(customerUuid, customerKey);
 			}
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
@@ -502,6 +504,11 @@ public class InvoiceDataHelper {
 	 * @return corresponding productKey
 	 */
 	public int findProduct(String productUuid) {
+		// Check the key cache before going to the database.
+		Integer cachedKey = KeyCache.products.getKey(productUuid);
+		if (cachedKey != null) {
+			return cachedKey;
+		}
 		int productKey = -1;
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
@@ -517,6 +524,7 @@ public class InvoiceDataHelper {
 			// "if" executes if the above query finds a corresponding product.
 			if (rs.next()) {
 				productKey = rs.getInt("productKey");
+				KeyCache.products.put(productUuid, productKey);
 			}
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
@@ -538,6 +546,11 @@ public class InvoiceDataHelper {
 	 * @return corresponding invoiceKey
 	 */
 	public int findInvoice(String invoiceUuid) {
+		// Check the key cache before going to the database.
+		Integer cachedKey = KeyCache.invoices.getKey(invoiceUuid);
+		if (cachedKey != null) {
+			return cachedKey;
+		}
 		int invoiceKey = -1;
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
@@ -553,6 +566,7 @@ public class InvoiceDataHelper {
 			// "if" executes if the above query found a corresponding Invoice instance
 			if (rs.next()) {
 				invoiceKey = rs.getInt("invoiceKey");
+				KeyCache.invoices.put(invoiceUuid, invoiceKey);
 			}
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
@@ -568,214 +582,151 @@ public class InvoiceDataHelper {
 //-------------------------------------------------------------------------------------------------------------------
 
 	/**
-	 * This method is a helper method for the removePerson method and is used to
-	 * remove an Invoice on a given personKey
+	 * Looks up the surrogate keys of many rows at once with
+	 * <code>SELECT keyColumn, uuidColumn FROM table WHERE uuidColumn IN (...)</code>,
+	 * on the given connection so it can run inside the caller's transaction.
+	 * UUIDs that are not in the table are left out of the returned map.
 	 * 
-	 * @param personKey
+	 * @param conn
+	 * @param table
+	 * @param uuidColumn
+	 * @param keyColumn
+	 * @param uuids
+	 * @return map of uuid to key
+	 * @throws SQLException
 	 */
-	public void removeInvoiceByPersonKey(int personKey) {
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Query try's to get an invoice on a given personKey
-		String invoiceQuery = "SELECT invoiceUuid FROM Invoice WHERE personKey = ?";
-
-		try {
-			ps = conn.prepareStatement(invoiceQuery);
-			ps.setInt(1, personKey);
-			rs = ps.executeQuery();
-			// "if" executes if the above query finds a invoice with the given person key
-			if (rs.next()) {
-				String invoiceUuid = rs.getString("invoiceUuid");
-				// given the removeInvoice method the invoiceUuid to delete before person
-				InvoiceData.removeInvoice(invoiceUuid);
+	public static Map<String, Integer> findKeys(Connection conn, String table, String uuidColumn, String keyColumn,
+			Collection<String> uuids) throws SQLException {
+		Map<String, Integer> keys = new HashMap<String, Integer>();
+		List<String> pending = new ArrayList<String>(uuids);
+		int sliceSize = 500;
+
+		// Query in slices so the IN list stays a reasonable size.
+		for (int from = 0; from < pending.size(); from += sliceSize) {
+			List<String> slice = pending.subList(from, Math.min(from + sliceSize, pending.size()));
+			StringBuilder query = new StringBuilder();
+			query.append("SELECT ").append(keyColumn).append(", ").append(uuidColumn).append(" FROM ").append(table)
+					.append(" WHERE ").append(uuidColumn).append(" IN (");
+			for (int i = 0; i < slice.size(); i++) {
+				query.append(i == 0 ? "?" : ", ?");
 			}
-			rs.close();
-			ps.close();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections that were opened up in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
-		}
-	}
-
-//--------------------------------------------------------------------------------------------------------------------
-
-	/**
-	 * This method is a helper method for the removePerson method and is used to
-	 * remove a Customer on a given personKey
-	 * 
-	 * @param personKey
-	 */
-	public void removeCustomerByPersonKey(int personKey) {
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Query try's to get a customer on the above personKey
-		String customerQuery = "SELECT customerUuid FROM Customer WHERE personKey = ?";
-
-		try {
-			ps = conn.prepareStatement(customerQuery);
-			ps.setInt(1, personKey);
-			rs = ps.executeQuery();
-			// "if" executes if the above query found a customer
-			if (rs.next()) {
-				String customerUuid = rs.getString("customerUuid");
-				// Give the remove customer method the customerUuid found on the above query.
-				InvoiceData.removeCustomer(customerUuid);
+			query.append(")");
+
+			PreparedStatement ps = null;
+			ResultSet rs = null;
+			try {
+				ps = conn.prepareStatement(query.toString());
+				for (int i = 0; i < slice.size(); i++) {
+					ps.setString(i + 1, slice.get(i));
+				}
+				rs = ps.executeQuery();
+				while (rs.next()) {
+					keys.put(rs.getString(uuidColumn), rs.getInt(keyColumn));
+				}
+			} finally {
+				ConnectionFactory.closeConnection(ps, rs);
 			}
-			rs.close();
-			ps.close();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections that were opened up in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
+		return keys;
 	}
 
-//--------------------------------------------------------------------------------------------------------------------
+//-------------------------------------------------------------------------------------------------------------------
 
 	/**
-	 * This method is a helper method for the removePerson method and is used to
-	 * remove a Product on a given personKey
+	 * Marks an invoice as changed for the incremental report refresh, for changes
+	 * to its line items that do not update the Invoice row itself.
 	 * 
-	 * @param personKey
+	 * @param conn
+	 * @param invoiceKey
+	 * @throws SQLException
 	 */
-	public void removeProductByPersonKey(int personKey) {
-		Connection conn = ConnectionFactory.getConnection();
+	public static void touchInvoice(Connection conn, int invoiceKey) throws SQLException {
 		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Query try's to get a product on the given personKey.
-		String productQuery = "SELECT productUuid FROM Product WHERE personKey = ?";
-
 		try {
-			ps = conn.prepareStatement(productQuery);
-			ps.setInt(1, personKey);
-			rs = ps.executeQuery();
-			// "if" executes if the above query finds a product.
-			if (rs.next()) {
-				String productUuid = rs.getString("productUuid");
-				// Give the remove product method the product that was found.
-				InvoiceData.removeProduct(productUuid);
-			}
-			rs.close();
-			ps.close();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
+			ps = conn.prepareStatement("UPDATE Invoice SET lastModified = CURRENT_TIMESTAMP(3) WHERE invoiceKey = ?");
+			ps.setInt(1, invoiceKey);
+			ps.executeUpdate();
 		} finally {
-			// Close all the connections that were opened up in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+			ConnectionFactory.closeConnection(ps, null);
 		}
 	}
 
 //-------------------------------------------------------------------------------------------------------------------
 
 	/**
-	 * This method is a helper function for the removeCustomer method and is used to
-	 * remove an Invoice on a given customerKey.
+	 * Runs a set-based statement, usually a delete, for many rows at once on the
+	 * given connection, so it can run inside the caller's transaction. The
+	 * statement must end with the uuid column it filters on, for example
+	 * <code>DELETE e FROM Email e JOIN Person p ON e.personKey = p.personKey WHERE p.personUuid</code>,
+	 * and is run with <code>IN (...)</code> appended, in slices like findKeys.
 	 * 
-	 * @param customerKey
+	 * @param conn
+	 * @param delete
+	 * @param uuids
+	 * @return number of rows changed
+	 * @throws SQLException
 	 */
-	public void removeInvoiceByCustomerKey(int customerKey) {
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Query to find a invoice that has the corresponding customer key.
-		String invoiceQuery = "SELECT invoiceUuid FROM Invoice WHERE customerKey = ?";
-
-		try {
-			ps = conn.prepareStatement(invoiceQuery);
-			ps.setInt(1, customerKey);
-			rs = ps.executeQuery();
-			// "if" executes if the above query found any invoices with the corresponding
-			// customerKey.
-			if (rs.next()) {
-				String invoiceUuid = rs.getString("invoiceUuid");
-				// Call the removeInvoice method to remove the invoice.
-				InvoiceData.removeInvoice(invoiceUuid);
+	public static int deleteByUuids(Connection conn, String delete, Collection<String> uuids) throws SQLException {
+		int deleted = 0;
+		List<String> pending = new ArrayList<String>(uuids);
+		int sliceSize = 500;
+
+		for (int from = 0; from < pending.size(); from += sliceSize) {
+			List<String> slice = pending.subList(from, Math.min(from + sliceSize, pending.size()));
+			StringBuilder query = new StringBuilder(delete).append(" IN (");
+			for (int i = 0; i < slice.size(); i++) {
+				query.append(i == 0 ? "?" : ", ?");
+			}
+			query.append(")");
+
+			PreparedStatement ps = null;
+			try {
+				ps = conn.prepareStatement(query.toString());
+				for (int i = 0; i < slice.size(); i++) {
+					ps.setString(i + 1, slice.get(i));
+				}
+				deleted += ps.executeUpdate();
+			} finally {
+				ConnectionFactory.closeConnection(ps, null);
 			}
-			rs.close();
-			ps.close();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections that were opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
+		return deleted;
 	}
 
 //-------------------------------------------------------------------------------------------------------------------
 
 	/**
-	 * This method is a helper method of the removeProduct method and is used to
-	 * delete an InvoiceProduct instance based on a productUuid
+	 * Same as {@link #findKeys(Connection, String, String, String, Collection)} but
+	 * answers from the given key cache first and only queries for the misses,
+	 * adding whatever it finds to the cache.
 	 * 
-	 * @param productUuid
+	 * @param conn
+	 * @param cache
+	 * @param table
+	 * @param uuidColumn
+	 * @param keyColumn
+	 * @param uuids
+	 * @return map of uuid to key
+	 * @throws SQLException
 	 */
-	public void removeInvoiceProductOnProduct(String productUuid) {
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Query to delete an InvoiceProduct on a given productUuid.
-		String query = "DELETE ip FROM InvoiceProduct ip LEFT JOIN Product p ON ip.productKey = p.productKey WHERE p.productUuid = ?";
-
-		try {
-			ps = conn.prepareStatement(query);
-			ps.setString(1, productUuid);
-			ps.executeUpdate();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close all the connections that were opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+	public static Map<String, Integer> findKeys(Connection conn, KeyCache cache, String table, String uuidColumn,
+			String keyColumn, Collection<String> uuids) throws SQLException {
+		Map<String, Integer> keys = new HashMap<String, Integer>();
+		List<String> misses = new ArrayList<String>();
+		for (String uuid : uuids) {
+			Integer key = cache.getKey(uuid);
+			if (key != null) {
+				keys.put(uuid, key);
+			} else {
+				misses.add(uuid);
+			}
 		}
-	}
-
-//-------------------------------------------------------------------------------------------------------------------
-
-	/**
-	 * This method is a helper function for the removeInvoice method and is used to
-	 * remove an InvoiceProduct on a given invoiceUuid
-	 * 
-	 * @param invoiceUuid
-	 */
-	public void removeInvoiceProductOnInvoice(String invoiceUuid) {
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// Query to delete an IncvoiceProduct on the given invoiceUuid
-		String query = "DELETE ip FROM InvoiceProduct ip LEFT JOIN Invoice i ON ip.invoiceKey = i.invoiceKey WHERE i.invoiceUuid = ?";
-
-		try {
-			ps = conn.prepareStatement(query);
-			ps.setString(1, invoiceUuid);
-			ps.executeUpdate();
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			// Close the connections that were opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
+		if (!misses.isEmpty()) {
+			Map<String, Integer> found = findKeys(conn, table, uuidColumn, keyColumn, misses);
+			cache.putAll(found);
+			keys.putAll(found);
 		}
+		return keys;
 	}
 
 //-------------------------------------------------------------------------------------------------------------------
@@ -788,18 +739,30 @@ public class InvoiceDataHelper {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
-		// Query to delete all the data from the InvoiceProduct table in the database
-		String query = "DELETE FROM InvoiceProduct";
-
 		try {
-			ps = conn.prepareStatement(query);
-			ps.executeUpdate();
+			// The invoices that lose line items are touched in the same transaction, so incremental
+			// refreshes reload them without the deleted products.
+			conn.setAutoCommit(false);
+			try {
+				ps = conn.prepareStatement("UPDATE Invoice i JOIN InvoiceProduct ip ON ip.invoiceKey = i.invoiceKey "
+						+ "SET i.lastModified = CURRENT_TIMESTAMP(3)");
+				ps.executeUpdate();
+				ps.close();
+				// Query to delete all the data from the InvoiceProduct table in the database
+				ps = conn.prepareStatement("DELETE FROM InvoiceProduct");
+				ps.executeUpdate();
+				conn.commit();
+			} catch (SQLException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			}
+			conn.setAutoCommit(true);
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
 			throw new RuntimeException(e);
 		} finally {
-			// Close all the connections opened in this method.
+			// Close all the connections opened in this method, which also resets it if the delete failed.
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
 	}
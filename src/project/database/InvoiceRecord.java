@@ -0,0 +1,133 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This object holds one invoice and its line items for the bulk invoice API.
+ */
+package project.database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An invoice to be written by {@link InvoiceData#addInvoices(List)}, referencing
+ * its customer, salesperson and products by UUID just like the single-row
+ * add methods do.
+ */
+public class InvoiceRecord {
+
+	private final String invoiceUuid;
+	private final String customerUuid;
+	private final String personUuid;
+	private final List<LineItem> lineItems = new ArrayList<LineItem>();
+
+	public InvoiceRecord(String invoiceUuid, String customerUuid, String personUuid) {
+		this.invoiceUuid = invoiceUuid;
+		this.customerUuid = customerUuid;
+		this.personUuid = personUuid;
+	}
+
+	public String getInvoiceUuid() {
+		return invoiceUuid;
+	}
+
+	public String getCustomerUuid() {
+		return customerUuid;
+	}
+
+	public String getPersonUuid() {
+		return personUuid;
+	}
+
+	public List<LineItem> getLineItems() {
+		return lineItems;
+	}
+
+	/**
+	 * Adds an equipment line item with the given number of units.
+	 *
+	 * @param productUuid
+	 * @param numberOfUnits
+	 * @return this record
+	 */
+	public InvoiceRecord addEquipment(String productUuid, int numberOfUnits) {
+		lineItems.add(new LineItem(productUuid, numberOfUnits, null, null, null));
+		return this;
+	}
+
+	/**
+	 * Adds a license line item with the given begin/end dates.
+	 *
+	 * @param productUuid
+	 * @param effectiveBeginDate
+	 * @param effectiveEndDate
+	 * @return this record
+	 */
+	public InvoiceRecord addLicense(String productUuid, String effectiveBeginDate, String effectiveEndDate) {
+		lineItems.add(new LineItem(productUuid, null, null, effectiveBeginDate, effectiveEndDate));
+		return this;
+	}
+
+	/**
+	 * Adds a consultation line item with the given number of billable hours.
+	 *
+	 * @param productUuid
+	 * @param billableHours
+	 * @return this record
+	 */
+	public InvoiceRecord addConsultation(String productUuid, double billableHours) {
+		lineItems.add(new LineItem(productUuid, null, billableHours, null, null));
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "invoiceUuid = " + this.invoiceUuid + ", customerUuid = " + this.customerUuid + ", personUuid = "
+				+ this.personUuid + ", lineItems = " + this.lineItems.size();
+	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * One InvoiceProduct row. Only the columns for the product's type are set, the
+	 * others are null.
+	 */
+	public static class LineItem {
+
+		private final String productUuid;
+		private final Integer numberOfUnits;
+		private final Double billableHours;
+		private final String effectiveBeginDate;
+		private final String effectiveEndDate;
+
+		private LineItem(String productUuid, Integer numberOfUnits, Double billableHours, String effectiveBeginDate,
+				String effectiveEndDate) {
+			this.productUuid = productUuid;
+			this.numberOfUnits = numberOfUnits;
+			this.billableHours = billableHours;
+			this.effectiveBeginDate = effectiveBeginDate;
+			this.effectiveEndDate = effectiveEndDate;
+		}
+
+		public String getProductUuid() {
+			return productUuid;
+		}
+
+		public Integer getNumberOfUnits() {
+			return numberOfUnits;
+		}
+
+		public Double getBillableHours() {
+			return billableHours;
+		}
+
+		public String getEffectiveBeginDate() {
+			return effectiveBeginDate;
+		}
+
+		public String getEffectiveEndDate() {
+			return effectiveEndDate;
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class caches the uuid to surrogate key mappings used by the InvoiceData writes.
+ */
+package project.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent two-way map between the UUIDs the InvoiceData API is given and the
+ * surrogate keys the tables use. The find methods of InvoiceDataHelper check it
+ * before querying, the add methods fill it, and the remove methods invalidate it.
+ */
+public class KeyCache {
+
+	// One cache per table that is looked up by uuid.
+	public static final KeyCache persons = new KeyCache();
+	public static final KeyCache customers = new KeyCache();
+	public static final KeyCache products = new KeyCache();
+	public static final KeyCache invoices = new KeyCache();
+
+	private final Map<String, Integer> keysByUuid = new ConcurrentHashMap<String, Integer>();
+	private final Map<Integer, String> uuidsByKey = new ConcurrentHashMap<Integer, String>();
+
+	// Returns the key for the uuid, or null if it is not cached.
+	public Integer getKey(String uuid) {
+		return uuid == null ? null : keysByUuid.get(uuid);
+	}
+
+	// Returns the uuid for the key, or null if it is not cached.
+	public String getUuid(int key) {
+		return uuidsByKey.get(key);
+	}
+
+//-------------------------------------------------------------------------------------------------------------------
+
+	// Stores the mapping in both directions, replacing any older mapping for either side.
+	public synchronized void put(String uuid, int key) {
+		if (uuid == null || key < 0) {
+			return;
+		}
+		Integer oldKey = keysByUuid.put(uuid, key);
+		if (oldKey != null && oldKey != key) {
+			uuidsByKey.remove(oldKey);
+		}
+		String oldUuid = uuidsByKey.put(key, uuid);
+		if (oldUuid != null && !oldUuid.equals(uuid)) {
+			keysByUuid.remove(oldUuid);
+		}
+	}
+
+	public synchronized void putAll(Map<String, Integer> keys) {
+		for (Map.Entry<String, Integer> entry : keys.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public synchronized void removeUuid(String uuid) {
+		Integer key = keysByUuid.remove(uuid);
+		if (key != null) {
+			uuidsByKey.remove(key);
+		}
+	}
+
+	public synchronized void removeKey(int key) {
+		String uuid = uuidsByKey.remove(key);
+		if (uuid != null) {
+			keysByUuid.remove(uuid);
+		}
+	}
+
+	public synchronized void clear() {
+		keysByUuid.clear();
+		uuidsByKey.clear();
+	}
+
+	public int size() {
+		return keysByUuid.size();
+	}
+
+}
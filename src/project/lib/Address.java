@@ -13,6 +13,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import project.utils.ConnectionFactory;
+import project.utils.IdentityMap;
+import project.utils.RepositoryFactory;
 
 public class Address {
 
@@ -76,10 +78,22 @@ public class Address {
 	
 //--------------------------------------------------------------------------------
 	
-	//This method takes an addressKey and query's the database for that address, then returns it.
+	// This method returns the address with the given key from the current repository.
 	public static Address getAddressByKey(int addressKey) {
+		return RepositoryFactory.getRepository().getAddressByKey(addressKey);
+	}
+
+//--------------------------------------------------------------------------------
+
+	//This method takes an addressKey and query's the database for that address, then returns it.
+	public static Address queryAddressByKey(int addressKey) {
+		// Reuse the address if it was already built during this unit of work.
+		IdentityMap identityMap = IdentityMap.current();
+		if (identityMap != null && identityMap.getAddress(addressKey) != null) {
+			return identityMap.getAddress(addressKey);
+		}
 		Address address = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		
 		//Query to get all fields from the address table on a specific addressKey
 		String query = "SELECT addressKey, street, city, stateKey, zip FROM Address WHERE addressKey = ?";
@@ -109,6 +123,9 @@ public class Address {
 		} finally {
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
+		if (identityMap != null) {
+			address = identityMap.putAddress(addressKey, address);
+		}
 		return address;
 	}
 
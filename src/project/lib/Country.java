@@ -12,6 +12,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import project.utils.ConnectionFactory;
+import project.utils.IdentityMap;
+import project.utils.ReferenceDataRegistry;
+import project.utils.RepositoryFactory;
 
 public class Country {
 
@@ -46,10 +49,28 @@ public class Country {
 
 //-----------------------------------------------------------------------------------
 
-	// This method takes a countryKey and query's the database on that key to return the related country.
+	// This method returns the country with the given key from the current repository.
 	public static Country getCountryByKey(int countryKey) {
+		return RepositoryFactory.getRepository().getCountryByKey(countryKey);
+	}
+
+//-----------------------------------------------------------------------------------
+
+	// This method takes a countryKey and query's the database on that key to return the related country.
+	public static Country queryCountryByKey(int countryKey) {
+		// The preloaded tables answer without going to the database. A country added since they
+		// were read is queried below and added to them.
+		Country registered = ReferenceDataRegistry.getCountry(countryKey);
+		if (registered != null) {
+			return registered;
+		}
+		// Reuse the country if it was already built during this unit of work.
+		IdentityMap identityMap = IdentityMap.current();
+		if (identityMap != null && identityMap.getCountry(countryKey) != null) {
+			return identityMap.getCountry(countryKey);
+		}
 		Country country = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		String query = "SELECT countryKey, countryName FROM Country WHERE countryKey = ?";
 
 		PreparedStatement ps = null;
@@ -72,7 +93,10 @@ public class Country {
 		} finally {
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
-		return country;
+		if (identityMap != null) {
+			country = identityMap.putCountry(countryKey, country);
+		}
+		return ReferenceDataRegistry.addCountry(country);
 	}
 
 }
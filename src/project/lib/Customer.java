@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import project.utils.ConnectionFactory;
+import project.utils.RepositoryFactory;
 
 public abstract class Customer{
 
@@ -52,13 +53,20 @@ public abstract class Customer{
 	}
 	
 	
+//----------------------------------------------------------------------------------------------------------
+
+	// This method returns the customer with the given key from the current repository.
+	public static Customer getCustomerByKey(int customerKey) {
+		return RepositoryFactory.getRepository().getCustomerByKey(customerKey);
+	}
+
 //----------------------------------------------------------------------------------------------------------
 
 	// This method takes a customer key and query's the database on that key to
 	// return the relating customer
-	public static Customer getCustomerByKey(int customerKey) {
+	public static Customer queryCustomerByKey(int customerKey) {
 		Customer customer = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		String query = "SELECT customerUuid, customerType, customerName, personKey, addressKey FROM Customer WHERE customerKey = ?";
 
 		PreparedStatement ps = null;
@@ -101,10 +109,17 @@ public abstract class Customer{
 	
 //--------------------------------------------------------------------------------------------
 	
-	//This method query's the database to return a list of all the customers in the database.
+	// This method returns every customer in the current repository.
 	public static List<Customer> getAllCustomers() {
+		return RepositoryFactory.getRepository().getAllCustomers();
+	}
+
+//----------------------------------------------------------------------------------------------------------
+
+	//This method query's the database to return a list of all the customers in the database.
+	public static List<Customer> queryAllCustomers() {
 		List<Customer> customerList = new ArrayList<Customer>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 
 		String query = "SELECT customerUuid, customerType, customerName, personKey, addressKey FROM Customer";
 
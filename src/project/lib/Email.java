@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import project.utils.ConnectionFactory;
+import project.utils.RepositoryFactory;
 
 public class Email {
 
@@ -44,13 +45,20 @@ public class Email {
 		return this.email;
 	}
 
+//----------------------------------------------------------------------------------------
+
+	// This method returns the email with the given key from the current repository.
+	public static Email getEmailByKey(int emailKey) {
+		return RepositoryFactory.getRepository().getEmailByKey(emailKey);
+	}
+
 //----------------------------------------------------------------------------------------
 
 	// This method takes an emailKey and query's the database and returns the
 	// related email on the given key.
-	public static Email getEmailByKey(int emailKey) {
+	public static Email queryEmailByKey(int emailKey) {
 		Email email = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -76,11 +84,18 @@ public class Email {
 
 //-------------------------------------------------------------------------------
 
+	// This method returns the emails of the given person from the current repository.
+	public static List<String> getPersonEmailList(int personKey) {
+		return RepositoryFactory.getRepository().getPersonEmailList(personKey);
+	}
+
+//----------------------------------------------------------------------------------------
+
 	// This method takes a personKey and query's the database and returns a list of
 	// email's on a given personKey
-	public static List<String> getPersonEmailList(int personKey) {
+	public static List<String> queryPersonEmailList(int personKey) {
 		List<String> emails = new ArrayList<String>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -109,7 +124,7 @@ public class Email {
 	
 	public static List<String> getEmailListByUuid(String personUuid) {
 		List<String> emails = new ArrayList<String>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -12,10 +12,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import project.utils.ConnectionFactory;
-import project.utils.DatabaseReader;
+import project.utils.RepositoryFactory;
+import project.utils.Transaction;
 
 public class Invoice {
 
@@ -23,13 +25,16 @@ public class Invoice {
 	private Customer customer;
 	private Person salesPerson;
 	private List<Product> productList = new ArrayList<Product>();
+	// The total of the products, worked out the first time it is asked for. NaN until then.
+	private volatile double total = Double.NaN;
 
 	//Constructor
 	public Invoice(String invoiceUuid, Customer customer, Person salesPerson, List<Product> productList) {
 		this.invoiceUuid = invoiceUuid;
 		this.customer = customer;
 		this.salesPerson = salesPerson;
-		this.productList = productList;
+		// Copied so only addProduct can change the products, and the cached total with them.
+		this.productList = new ArrayList<Product>(productList);
 	}
 	
 	public Invoice(String invoiceUuid, Customer customer, Person salesPerson) {
@@ -55,14 +60,27 @@ public class Invoice {
 		return salesPerson;
 	}
 	
-	//method returns an invoices productList
+	//method returns an invoices productList, which can not be changed through it so the
+	//total stays right. Use addProduct to add to it.
 	public List<Product> getProductList() {
-		return productList;
+		return Collections.unmodifiableList(productList);
 	}
 	
 	//method to add a product to the invoices productList
 	public void addProduct(Product p) {
 		this.productList.add(p);
+		this.total = Double.NaN;
+	}
+	
+	//method returns the total of the products in the invoice with taxes, the same as
+	//Transaction.totalByProductList. It is only added up once, adding a product adds it up again.
+	public double getTotal() {
+		double total = this.total;
+		if (Double.isNaN(total)) {
+			total = Transaction.totalByProductList(this);
+			this.total = total;
+		}
+		return total;
 	}
 	
 	@Override
@@ -72,10 +90,17 @@ public class Invoice {
 	
 //--------------------------------------------------------------------------------------------------
 	
-	// This method takes an invoiceKey and query's the database and returns the corresponding invoice.
+	// This method returns the invoice with the given key from the current repository.
 	public static Invoice getInvoiceByKey(int invoiceKey) {
+		return RepositoryFactory.getRepository().getInvoiceByKey(invoiceKey);
+	}
+
+//--------------------------------------------------------------------------------------------------
+
+	// This method takes an invoiceKey and query's the database and returns the corresponding invoice.
+	public static Invoice queryInvoiceByKey(int invoiceKey) {
 		Invoice invoice = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		
@@ -139,43 +164,9 @@ public class Invoice {
 	
 //-----------------------------------------------------------------------------------
 	
-	//This method query's the database and returns a list of all the invoices in the database.
+	//This method returns every invoice in the current repository along with its customer, salesperson and products.
 	public static List<Invoice> getAllInvoices() {
-		List<Invoice> invoiceList = new ArrayList<Invoice>();
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-		
-		String query = "SELECT invoiceKey, invoiceUuid, customerKey, personKey FROM Invoice";
-		
-		//This try/catch executes the query from above to retrieve all invoices in the DB
-		try {
-			ps = conn.prepareStatement(query);
-			rs = ps.executeQuery();
-			//while there are still invoices in the database continue
-			while (rs.next()) {
-				int invoiceKey = rs.getInt("invoiceKey"); 
-				String invoiceUuid = rs.getString("invoiceUuid");
-				int customerKey = rs.getInt("customerKey");
-				int personKey = rs.getInt("personKey");
-				
-				//Get the corresponding customer, salesperson, and productList from the database
-				Customer customer = Customer.getCustomerByKey(customerKey);
-				Person salesPerson = Person.getPersonByKey(personKey);
-				List<Product> productList = DatabaseReader.getProductList(invoiceKey);
-				
-				Invoice invoices = new Invoice(invoiceUuid, customer, salesPerson, productList);
-				invoiceList.add(invoices);
-			}
-		} catch (SQLException e) {
-			System.out.println("SQLException: ");
-			e.printStackTrace();
-			throw new RuntimeException(e);
-		} finally {
-			//Close the connections that were opened in this method.
-			ConnectionFactory.closeConnection(conn, ps, rs);
-		}
-		return invoiceList;
+		return RepositoryFactory.getRepository().getAllInvoices();
 	}
 
 }
@@ -15,6 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import project.utils.ConnectionFactory;
+import project.utils.IdentityMap;
+import project.utils.RepositoryFactory;
 
 public class Person {
 
@@ -67,13 +69,25 @@ public class Person {
 				+ this.firstName + ", Address = " + this.address + ", Emails = " + this.emails;
 	}
 
+//--------------------------------------------------------------------------------------------------
+
+	// This method returns the person with the given key from the current repository.
+	public static Person getPersonByKey(int personKey) {
+		return RepositoryFactory.getRepository().getPersonByKey(personKey);
+	}
+
 //--------------------------------------------------------------------------------------------------
 
 	// This method takes a personKey, query's the database and returns the
 	// corresponding person
-	public static Person getPersonByKey(int personKey) {
+	public static Person queryPersonByKey(int personKey) {
+		// Reuse the person if it was already built during this unit of work.
+		IdentityMap identityMap = IdentityMap.current();
+		if (identityMap != null && identityMap.getPerson(personKey) != null) {
+			return identityMap.getPerson(personKey);
+		}
 		Person person = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		
 		String query = "SELECT personUuid, lastName, firstName, addressKey FROM Person WHERE personKey = ?";
 
@@ -118,15 +132,25 @@ public class Person {
 		} finally {
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
+		if (identityMap != null) {
+			person = identityMap.putPerson(personKey, person);
+		}
 		return person;
 	}
 
 //---------------------------------------------------------------------------
 
-	// This method query's the database and returns a list of all the persons in the database.
+	// This method returns every person in the current repository.
 	public static List<Person> getAllPersons() {
+		return RepositoryFactory.getRepository().getAllPersons();
+	}
+
+//--------------------------------------------------------------------------------------------------
+
+	// This method query's the database and returns a list of all the persons in the database.
+	public static List<Person> queryAllPersons() {
 		List<Person> persons = new ArrayList<>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 
 		String query = "SELECT personKey, personUuid, lastName, firstName, addressKey FROM Person";
 
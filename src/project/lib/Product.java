@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import project.utils.ConnectionFactory;
+import project.utils.RepositoryFactory;
 
 public abstract class Product {
 
@@ -46,10 +47,17 @@ public abstract class Product {
 	
 //------------------------------------------------------------------------------
 	
-	//This method takes a productKey, query's the database and returns the corresponding product.
+	// This method returns the product with the given key from the current repository.
 	public static Product getProductByKey(int productKey) {
+		return RepositoryFactory.getRepository().getProductByKey(productKey);
+	}
+
+//------------------------------------------------------------------------------
+
+	//This method takes a productKey, query's the database and returns the corresponding product.
+	public static Product queryProductByKey(int productKey) {
 		Product product = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		
 		String query = "SELECT productKey, productUuid, productType, productName, personKey, hourlyFee, annualLicenseFee, "
 				     + "serviceFee, pricePerUnit FROM Product WHERE productKey = ?";
@@ -95,10 +103,17 @@ public abstract class Product {
 	
 //--------------------------------------------------------------------------------------	
 
-	//This method query's the database and returns a list of all the products in the database.
+	// This method returns every product in the current repository.
 	public static List<Product> getAllProducts() {
+		return RepositoryFactory.getRepository().getAllProducts();
+	}
+
+//------------------------------------------------------------------------------
+
+	//This method query's the database and returns a list of all the products in the database.
+	public static List<Product> queryAllProducts() {
 		List<Product> products = new ArrayList<Product>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 
 		String query = "SELECT productKey, productUuid, productType, productName, personKey, hourlyFee, annualLicenseFee, serviceFee, pricePerUnit FROM Product";
 
@@ -143,7 +158,7 @@ public abstract class Product {
 	// this method query's the database and returns a list of all the data in the invoiceProduct database table
 	public static List<Product> getReportProducts() {
 		List<Product> products = new ArrayList<Product>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 
 		String query = "SELECT p.productKey, p.productUuid, p.productType, p.name, p.personKey, "
 				     + "p.hourlyFee, p.annualLicenseFee, p.serviceFee, p.pricePerUnit,  FROM "
@@ -13,6 +13,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import project.utils.ConnectionFactory;
+import project.utils.IdentityMap;
+import project.utils.ReferenceDataRegistry;
+import project.utils.RepositoryFactory;
 
 public class State {
 
@@ -54,10 +57,28 @@ public class State {
 	
 //-------------------------------------------------------------
 	
-	//This method takes a stateKey, query's the database and returns the corresponding state.
+	// This method returns the state with the given key from the current repository.
 	public static State getStateByKey(int stateKey) {
+		return RepositoryFactory.getRepository().getStateByKey(stateKey);
+	}
+
+//-------------------------------------------------------------
+
+	//This method takes a stateKey, query's the database and returns the corresponding state.
+	public static State queryStateByKey(int stateKey) {
+		// The preloaded tables answer without going to the database. A state added since they were
+		// read is queried below and added to them.
+		State registered = ReferenceDataRegistry.getState(stateKey);
+		if (registered != null) {
+			return registered;
+		}
+		// Reuse the state if it was already built during this unit of work.
+		IdentityMap identityMap = IdentityMap.current();
+		if (identityMap != null && identityMap.getState(stateKey) != null) {
+			return identityMap.getState(stateKey);
+		}
 		State state = null;
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		
 		String query = "SELECT stateKey, stateName, countryKey FROM State WHERE stateKey = ?";
 
@@ -83,7 +104,10 @@ public class State {
 		} finally {
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
-		return state;
+		if (identityMap != null) {
+			state = identityMap.putState(stateKey, state);
+		}
+		return ReferenceDataRegistry.addState(state);
 	}
 
 }
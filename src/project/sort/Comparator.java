@@ -7,7 +7,16 @@
  */
 package project.sort;
 
-public abstract class Comparator<T> {
-	//Abstract method for subclasses to compare to invoices
+import java.util.Arrays;
+
+public abstract class Comparator<T> implements java.util.Comparator<T> {
+	//Abstract method for subclasses to compare to invoices, so they can also be given to
+	//Arrays.sort and the other java.util sorting methods
+	@Override
 	public abstract int compare(T element1, T element2);
+
+	//Sorts the given array with this comparator. The sort is stable.
+	public void sort(T[] elements) {
+		Arrays.parallelSort(elements, this);
+	}
 }
@@ -0,0 +1,188 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class is a sorted list of invoices that many threads can use at once
+ */
+package project.sort;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import project.lib.Invoice;
+
+/**
+ * A sorted list of invoices for loaders that insert from several threads while
+ * another thread reads. It is kept in a ConcurrentSkipListSet, so insertSorted
+ * does not lock and takes O(log n). Iterating is weakly consistent: it never
+ * fails while inserts go on, and it may or may not see the invoices inserted
+ * after it started. The size is counted as invoices go in and out, so size() is
+ * O(1) and not a walk like LinkedList.size() used to be.
+ * 
+ * Every invoice gets a sequence number when it is inserted, and invoices that
+ * compare equal are in the order of those numbers. A loader can pass its own
+ * numbers, e.g. the position each invoice was read at, to get the same order
+ * however the threads interleave. When the comparator is a
+ * KeyedComparator the invoice's byte key is taken once on insert and the list
+ * only compares keys.
+ */
+public class ConcurrentSortedInvoiceList implements Iterable<Invoice> {
+
+	private final Comparator<Invoice> comparator;
+	private final KeyedComparator<?> keyedComparator;
+	private final ConcurrentSkipListSet<Entry> entries;
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicInteger size = new AtomicInteger();
+
+	//Constructor
+	public ConcurrentSortedInvoiceList(Comparator<Invoice> comparator) {
+		if (comparator == null) {
+			throw new IllegalArgumentException("A ConcurrentSortedInvoiceList needs a comparator");
+		}
+		this.comparator = comparator;
+		this.keyedComparator = comparator instanceof KeyedComparator ? (KeyedComparator<?>) comparator : null;
+		this.entries = new ConcurrentSkipListSet<Entry>(this::compare);
+	}
+
+	public Comparator<Invoice> getComparator() {
+		return this.comparator;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Inserts the invoice in the order of the list's comparator. Can be called
+	 * from many threads at once.
+	 * 
+	 * @param invoice
+	 */
+	public void insertSorted(Invoice invoice) {
+		insertSorted(invoice, sequence.getAndIncrement());
+	}
+
+	/**
+	 * Inserts the invoice in the order of the list's comparator, after the
+	 * invoices that compare equal and have a lower sequence number. The numbers
+	 * must be unique, so a list should not mix them with the ones
+	 * insertSorted(Invoice) hands out.
+	 * 
+	 * @param invoice
+	 * @param sequence
+	 */
+	public void insertSorted(Invoice invoice, long sequence) {
+		if (invoice == null) {
+			throw new IllegalArgumentException("This list does not allow null Invoices");
+		}
+		byte[] key = keyedComparator == null ? null : keyedComparator.getSortKey(invoice);
+		if (!entries.add(new Entry(invoice, key, sequence))) {
+			throw new IllegalArgumentException("An equal invoice already has sequence number " + sequence);
+		}
+		size.incrementAndGet();
+	}
+
+	// Returns the number of invoices in the list.
+	public int size() {
+		return size.get();
+	}
+
+	//Checks if the list is empty or not
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the first invoice, but does not remove it.
+	 * @return Invoice from the Head of the list.
+	 */
+	public Invoice getInvoiceFromHead() {
+		try {
+			return entries.first().invoice;
+		} catch (NoSuchElementException e) {
+			throw new IllegalStateException("Cannot retrieve from an empty list");
+		}
+	}
+
+	/**
+	 * Returns the last invoice, but does not remove it.
+	 * @return Invoice at the tail of the list
+	 */
+	public Invoice getInvoiceFromTail() {
+		try {
+			return entries.last().invoice;
+		} catch (NoSuchElementException e) {
+			throw new IllegalStateException("Cannot retrieve from an empty list");
+		}
+	}
+
+	/**
+	 * Removes the first invoice. When several threads remove at once each one
+	 * gets a different invoice.
+	 * @return the removed Invoice.
+	 */
+	public Invoice removeInvoiceFromHead() {
+		Entry entry = entries.pollFirst();
+		if (entry == null) {
+			throw new IllegalStateException("Cannot remove from an empty list");
+		}
+		size.decrementAndGet();
+		return entry.invoice;
+	}
+
+	// This method empties the list by removing the invoices one at a time, so the size stays right
+	// while other threads keep inserting.
+	public void clear() {
+		while (entries.pollFirst() != null) {
+			size.decrementAndGet();
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Iterates the invoices in order. The iterator is weakly consistent, see the
+	 * class comment.
+	 */
+	@Override
+	public Iterator<Invoice> iterator() {
+		Iterator<Entry> iterator = entries.iterator();
+		return new Iterator<Invoice>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Invoice next() {
+				return iterator.next().invoice;
+			}
+		};
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	private int compare(Entry one, Entry two) {
+		int result = one.key != null ? Arrays.compareUnsigned(one.key, two.key)
+				: comparator.compare(one.invoice, two.invoice);
+		return result != 0 ? result : Long.compare(one.sequence, two.sequence);
+	}
+
+	// An invoice in the list with its byte key (null when the comparator has none) and its sequence number.
+	private static class Entry {
+		private final Invoice invoice;
+		private final byte[] key;
+		private final long sequence;
+
+		private Entry(Invoice invoice, byte[] key, long sequence) {
+			this.invoice = invoice;
+			this.key = key;
+			this.sequence = sequence;
+		}
+	}
+
+}
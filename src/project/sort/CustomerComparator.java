@@ -6,17 +6,20 @@
  */
 package project.sort;
 
-import project.lib.Customer;
 import project.lib.Invoice;
 
-public class CustomerComparator<T> extends Comparator<Invoice>{
+public class CustomerComparator<T> extends KeyedComparator<String>{
 	
-	//This method takes two invoices by the customerNames
-	public int compare(Invoice one, Invoice two) {
-		Customer newCustomer = one.getCustomer();
-		Customer currentCustomer = two.getCustomer();
-		String newName = newCustomer.getCustomerName();
-		String currentName = currentCustomer.getCustomerName();
+	//The invoices are sorted by the customerNames
+	public String getKey(Invoice invoice) {
+		return invoice.getCustomer().getCustomerName();
+	}
+
+	public int compareKeys(String newName, String currentName) {
 		return newName.compareTo(currentName);
 	}
+
+	public void encodeKey(String name, SortKeyEncoder encoder) {
+		encoder.putString(name);
+	}
 }
@@ -0,0 +1,296 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class sorts invoice summaries that do not all fit in memory
+ */
+package project.sort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * An external merge sort of {@link InvoiceSummary} records by their sort keys.
+ * The summaries are collected until they reach the memory budget, then sorted
+ * with the RadixSorter and written to a temp file as a sorted run. When the
+ * input is used up the runs are merged with a k-way merge, reading one summary
+ * at a time from each run. At most MAX_FAN_IN runs are open at once: if there
+ * are more, neighbouring runs are first merged in groups into longer runs, as
+ * many passes as it takes. The read buffers of the open runs share the memory
+ * budget. If everything fits in the budget nothing is written and the
+ * summaries are sorted in memory. The sort is stable. Closing the sorter
+ * deletes the temp files, so it should be used in a try-with-resources.
+ */
+public class ExternalSorter implements Closeable {
+
+	// The default memory budget, -Dcinco.sort.memoryBytes overrides it.
+	public static final long DEFAULT_MEMORY_BUDGET = Long.getLong("cinco.sort.memoryBytes", 64L * 1024 * 1024);
+
+	// The most runs merged at once, which bounds the open files and read buffers of a merge.
+	public static final int MAX_FAN_IN = 64;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+	private final long memoryBudget;
+	private final File tempDir;
+	private final List<File> runFiles = new ArrayList<File>();
+	private final List<Integer> runSizes = new ArrayList<Integer>();
+	private final List<DataInputStream> openRuns = new ArrayList<DataInputStream>();
+	private int runCount = 0;
+
+	public ExternalSorter() {
+		this(DEFAULT_MEMORY_BUDGET, null);
+	}
+
+	/**
+	 * @param memoryBudget roughly how many bytes of summaries are held before a run is written
+	 * @param tempDir where the runs are written, null for java.io.tmpdir
+	 */
+	public ExternalSorter(long memoryBudget, File tempDir) {
+		if (memoryBudget <= 0) {
+			throw new IllegalArgumentException("memoryBudget must be positive, not " + memoryBudget);
+		}
+		this.memoryBudget = memoryBudget;
+		this.tempDir = tempDir;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads every summary from the iterator and returns them in the order of
+	 * their sort keys. The returned iterator reads from the temp files, so it can
+	 * only be used until the sorter is closed.
+	 * 
+	 * @param summaries
+	 * @return the sorted summaries
+	 */
+	public Iterator<InvoiceSummary> sort(Iterator<InvoiceSummary> summaries) {
+		List<InvoiceSummary> buffer = new ArrayList<InvoiceSummary>();
+		long bufferSize = 0;
+		while (summaries.hasNext()) {
+			InvoiceSummary summary = summaries.next();
+			if (!buffer.isEmpty() && bufferSize + summary.getEstimatedSize() > memoryBudget) {
+				writeRun(sortRun(buffer));
+				buffer.clear();
+				bufferSize = 0;
+			}
+			buffer.add(summary);
+			bufferSize += summary.getEstimatedSize();
+		}
+
+		InvoiceSummary[] last = sortRun(buffer);
+		if (runFiles.isEmpty()) {
+			return Arrays.asList(last).iterator();
+		}
+		if (last.length > 0) {
+			writeRun(last);
+		}
+		runCount = runFiles.size();
+		while (runFiles.size() > MAX_FAN_IN) {
+			mergePass();
+		}
+		return new Merge(0, runFiles.size());
+	}
+
+	// Returns the number of sorted runs the input was split into, not counting merge passes.
+	public int getRunCount() {
+		return runCount;
+	}
+
+	// This method closes the runs and deletes their temp files.
+	@Override
+	public void close() {
+		for (DataInputStream in : openRuns) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		openRuns.clear();
+		for (File file : runFiles) {
+			file.delete();
+		}
+		runFiles.clear();
+		runSizes.clear();
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	private static InvoiceSummary[] sortRun(List<InvoiceSummary> buffer) {
+		InvoiceSummary[] run = buffer.toArray(new InvoiceSummary[0]);
+		byte[][] keys = new byte[run.length][];
+		for (int i = 0; i < run.length; i++) {
+			keys[i] = run[i].getSortKey();
+		}
+		RadixSorter.sort(run, keys);
+		return run;
+	}
+
+	private void writeRun(InvoiceSummary[] run) {
+		writeRun(Arrays.asList(run).iterator(), run.length);
+	}
+
+	// This method writes a sorted run to a new temp file. The file is registered before it is
+	// written, so close deletes it even if the write fails.
+	private void writeRun(Iterator<InvoiceSummary> run, int size) {
+		try {
+			File file = File.createTempFile("invoice-run-", ".bin", tempDir);
+			file.deleteOnExit();
+			runFiles.add(file);
+			runSizes.add(size);
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+				while (run.hasNext()) {
+					run.next().writeTo(out);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		}
+	}
+
+	// This method merges each group of MAX_FAN_IN neighbouring runs into one longer run. The
+	// groups keep the order of the runs, so the merge stays stable.
+	private void mergePass() {
+		int count = runFiles.size();
+		for (int from = 0; from < count; from += MAX_FAN_IN) {
+			int to = Math.min(from + MAX_FAN_IN, count);
+			if (to - from == 1) {
+				runFiles.add(runFiles.get(from));
+				runSizes.add(runSizes.get(from));
+				continue;
+			}
+			int size = 0;
+			for (int i = from; i < to; i++) {
+				size += runSizes.get(i);
+			}
+			Merge merge = new Merge(from, to);
+			try {
+				writeRun(merge, size);
+			} finally {
+				merge.close();
+			}
+			for (int i = from; i < to; i++) {
+				runFiles.get(i).delete();
+			}
+		}
+		runFiles.subList(0, count).clear();
+		runSizes.subList(0, count).clear();
+	}
+
+	// Returns the read buffer size for each of the given number of open runs, so that together
+	// they stay within the memory budget. A tiny budget still gets MIN_BUFFER_SIZE per run.
+	private int readBufferSize(int runs) {
+		return (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, memoryBudget / runs));
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// One run being merged, with the summary it is up to.
+	private static class Run {
+		private final int index;
+		private final DataInputStream in;
+		private int remaining;
+		private InvoiceSummary current;
+
+		private Run(int index, DataInputStream in, int size) {
+			this.index = index;
+			this.in = in;
+			this.remaining = size;
+		}
+
+		// Reads the next summary of the run, returns false when the run is used up.
+		private boolean advance() throws IOException {
+			if (remaining == 0) {
+				current = null;
+				return false;
+			}
+			current = InvoiceSummary.readFrom(in);
+			remaining--;
+			return true;
+		}
+	}
+
+	// Merges the runs from (included) to (excluded) by always taking the smallest current summary.
+	// Equal keys are taken from the earlier run first, which keeps the sort stable.
+	private class Merge implements Iterator<InvoiceSummary> {
+		private final List<DataInputStream> streams = new ArrayList<DataInputStream>();
+		private final PriorityQueue<Run> queue;
+
+		private Merge(int from, int to) {
+			queue = new PriorityQueue<Run>(Math.max(1, to - from), (one, two) -> {
+				int result = Arrays.compareUnsigned(one.current.getSortKey(), two.current.getSortKey());
+				return result != 0 ? result : Integer.compare(one.index, two.index);
+			});
+			int bufferSize = readBufferSize(to - from);
+			try {
+				for (int i = from; i < to; i++) {
+					DataInputStream in = new DataInputStream(
+							new BufferedInputStream(new FileInputStream(runFiles.get(i)), bufferSize));
+					openRuns.add(in);
+					streams.add(in);
+					Run run = new Run(i, in, runSizes.get(i));
+					if (run.advance()) {
+						queue.add(run);
+					}
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !queue.isEmpty();
+		}
+
+		@Override
+		public InvoiceSummary next() {
+			Run run = queue.poll();
+			if (run == null) {
+				throw new NoSuchElementException();
+			}
+			InvoiceSummary summary = run.current;
+			try {
+				if (run.advance()) {
+					queue.add(run);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				throw new RuntimeException(e);
+			}
+			return summary;
+		}
+
+		// Closes the runs of a merge pass once it has been written out.
+		private void close() {
+			for (DataInputStream in : streams) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			openRuns.removeAll(streams);
+			streams.clear();
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class holds the line of the executive summary report for one invoice
+ */
+package project.sort;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import project.lib.Customer;
+import project.lib.Invoice;
+import project.lib.Product;
+import project.utils.Transaction;
+
+/**
+ * Everything the executive summary prints for one invoice, along with the byte
+ * key it is sorted by. It is much smaller than the invoice with its customer,
+ * salesperson and products, and can be written to and read back from a file,
+ * which is what lets the ExternalSorter sort more invoices than fit in memory.
+ */
+public class InvoiceSummary {
+
+	private final byte[] sortKey;
+	private final String invoiceUuid;
+	private final String customerName;
+	private final String salesPersonName;
+	private final double subTotal;
+	private final double serviceFees;
+	private final double taxes;
+	private final double total;
+
+	//Constructor
+	public InvoiceSummary(byte[] sortKey, String invoiceUuid, String customerName, String salesPersonName,
+			double subTotal, double serviceFees, double taxes, double total) {
+		this.sortKey = sortKey;
+		this.invoiceUuid = invoiceUuid;
+		this.customerName = customerName;
+		this.salesPersonName = salesPersonName;
+		this.subTotal = subTotal;
+		this.serviceFees = serviceFees;
+		this.taxes = taxes;
+		this.total = total;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds up the invoice the same way Report.printSummaryReport does, so the
+	 * report printed from the summaries has the same numbers.
+	 * 
+	 * @param invoice
+	 * @param comparator the order the summary will be sorted in
+	 * @return the summary of the invoice
+	 */
+	public static InvoiceSummary of(Invoice invoice, KeyedComparator<?> comparator) {
+		Customer customer = invoice.getCustomer();
+		double subTotal = 0.00, serviceFees = 0.00, taxes = 0.00, total = 0.00, complianceFee = 0.00;
+		for (Product product : invoice.getProductList()) {
+			subTotal += product.getSubTotal();
+			complianceFee = customer.getComplianceFee();
+			serviceFees += product.getServiceFee();
+			taxes += Transaction.getTaxes(product, customer);
+			total += Transaction.getTotal(product, customer);
+		}
+		serviceFees += complianceFee;
+		return new InvoiceSummary(comparator.getSortKey(invoice), invoice.getInvoiceUuid(),
+				customer.getCustomerName(), invoice.getSalesPerson().getName(), subTotal, serviceFees, taxes, total);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	public byte[] getSortKey() {
+		return sortKey;
+	}
+
+	public String getInvoiceUuid() {
+		return invoiceUuid;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public String getSalesPersonName() {
+		return salesPersonName;
+	}
+
+	public double getSubTotal() {
+		return subTotal;
+	}
+
+	// The service fees of the products plus the compliance fee of the customer.
+	public double getServiceFees() {
+		return serviceFees;
+	}
+
+	public double getTaxes() {
+		return taxes;
+	}
+
+	// The subtotal plus the taxes, without the fees.
+	public double getTotal() {
+		return total;
+	}
+
+	// A rough count of the bytes this summary takes up in memory.
+	public long getEstimatedSize() {
+		return 96 + sortKey.length + 2L * (invoiceUuid.length() + customerName.length() + salesPersonName.length());
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method writes the summary to the stream, to be read back with readFrom.
+	public void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(sortKey.length);
+		out.write(sortKey);
+		out.writeUTF(invoiceUuid);
+		out.writeUTF(customerName);
+		out.writeUTF(salesPersonName);
+		out.writeDouble(subTotal);
+		out.writeDouble(serviceFees);
+		out.writeDouble(taxes);
+		out.writeDouble(total);
+	}
+
+	// This method reads a summary written by writeTo.
+	public static InvoiceSummary readFrom(DataInputStream in) throws IOException {
+		byte[] sortKey = new byte[in.readInt()];
+		in.readFully(sortKey);
+		return new InvoiceSummary(sortKey, in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble(),
+				in.readDouble(), in.readDouble(), in.readDouble());
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class is the superclass for comparators that compare one key taken from each invoice
+ */
+package project.sort;
+
+import java.util.Arrays;
+
+import project.lib.Invoice;
+
+/**
+ * A comparator that orders invoices by a key taken from each one, such as its
+ * total or its customer name. compare takes the two keys every time it is
+ * called, but sort takes each invoice's key only once, sorts the keys with
+ * their invoices and writes the invoices back in order, so the sort itself only
+ * compares keys. getSortKey turns the key into bytes for the RadixSorter.
+ */
+public abstract class KeyedComparator<K> extends Comparator<Invoice> {
+
+	// Returns the key the given invoice is sorted by.
+	public abstract K getKey(Invoice invoice);
+
+	// Compares two keys, in the order the invoices should be in.
+	public abstract int compareKeys(K key1, K key2);
+
+	// Adds the key to the encoder, so that the byte keys sort in the same order as compareKeys.
+	public abstract void encodeKey(K key, SortKeyEncoder encoder);
+
+	// Returns the byte key the RadixSorter sorts the given invoice by.
+	public byte[] getSortKey(Invoice invoice) {
+		SortKeyEncoder encoder = new SortKeyEncoder();
+		encodeKey(getKey(invoice), encoder);
+		return encoder.toByteArray();
+	}
+
+	@Override
+	public int compare(Invoice one, Invoice two) {
+		return compareKeys(getKey(one), getKey(two));
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Sorts the invoices by their keys. The sort is stable, like Arrays.parallelSort.
+	@Override
+	public void sort(Invoice[] invoices) {
+		@SuppressWarnings("unchecked")
+		Keyed<K>[] keyed = (Keyed<K>[]) new Keyed<?>[invoices.length];
+		for (int i = 0; i < invoices.length; i++) {
+			keyed[i] = new Keyed<K>(getKey(invoices[i]), invoices[i]);
+		}
+		Arrays.parallelSort(keyed, (one, two) -> compareKeys(one.key, two.key));
+		for (int i = 0; i < keyed.length; i++) {
+			invoices[i] = keyed[i].invoice;
+		}
+	}
+
+	// An invoice together with its key.
+	private static class Keyed<K> {
+		private final K key;
+		private final Invoice invoice;
+
+		private Keyed(K key, Invoice invoice) {
+			this.key = key;
+			this.invoice = invoice;
+		}
+	}
+
+}
@@ -7,13 +7,23 @@
 package project.sort;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import project.lib.Invoice;
 
+/**
+ * A list of invoices that is kept as an AVL tree ordered by position, where
+ * every node also knows how many nodes are under it. That makes insertSorted,
+ * insertInvoiceAtIndex, getInvoice and remove O(log n) instead of walking the
+ * list. The nodes are also linked to each other in list order, so the head, the
+ * tail and iterating stay O(1) per element. Invoices that compare equal keep
+ * the order they were inserted in.
+ */
 public class LinkedList<T> implements Iterable<Invoice> {
 
 	// Define the state of my list
 	private Comparator<Invoice> comparator;
+	private Node<Invoice> root = null;
 	private Node<Invoice> head = null;
 	private Node<Invoice> tail = null;
 	private int size = 0; 
@@ -21,6 +31,7 @@ public class LinkedList<T> implements Iterable<Invoice> {
 	//Constructor method
 	public LinkedList() {
 		this.comparator = null;
+		this.root = null;
 		this.head = null;
 		this.tail = null;
 		this.size = 0;
@@ -53,18 +64,11 @@ public class LinkedList<T> implements Iterable<Invoice> {
 //-------------------------------------------------------------------------	
 
 	/**
-	 * find the size if you do not already have the size stored.
+	 * Returns the size of the list, the same as getSize.
 	 * @return size of the list
 	 */
 	public int size() {
-		Node<Invoice> current = head;
-		int count = 0;
-		//while not at the end of the list increase counter.
-		while (current != null) {
-			current = current.getNext();
-			count++;
-		}
-		return count;
+		return size;
 	}
 	
 //---------------------------------------------------------------------------------	
@@ -77,40 +81,42 @@ public class LinkedList<T> implements Iterable<Invoice> {
 //---------------------------------------------------------------------------------
 	
 	/**
-	 * Method to take an invoice and comparator to insert the invoice to the list by the comparator
+	 * Method to take an invoice and comparator to insert the invoice to the list by the comparator.
+	 * The invoice goes after every invoice it is not less than. If comparator is null the
+	 * comparator of the list is used.
+	 * The list must already be sorted by the same comparator. The position is found by a
+	 * binary search down the tree, so after addInvoiceToHead, addInvoiceToTail or
+	 * insertInvoiceAtIndex put an invoice out of order it can differ from the first
+	 * greater invoice a walk from the head would stop at.
 	 * @param invoice
 	 * @param comparator
 	 */
 	public void insertSorted(Invoice invoice, Comparator<Invoice> comparator) {
-		LinkedList<Invoice> sortedList = new LinkedList<Invoice>();
-		sortedList.setComparator(comparator);
-		Comparator<Invoice> listComparator = sortedList.getComparator();
-
-		// insert at the beginning
-		if (head == null || (listComparator.compare(invoice, (Invoice) head.getInvoice())) < 0) {
-			// either the list is empty or the new Invoice comes before the current head
-			addInvoiceToHead(invoice);
-			return;
+		checkInvoice(invoice);
+		if (comparator == null) {
+			comparator = this.comparator;
 		}
-
-		// insert in the middle
-		Node<Invoice> current = head;
-		int counter = 0;
-		//while the current is still in the list continue comparing
-		while (current != null) {
-			counter++;
-			Invoice currentInvoice = current.getInvoice();
-			//"if" executes if the given invoice comes before the current Invoice.
-			if ((listComparator.compare(invoice, currentInvoice)) < 0) {
-				insertInvoiceAtIndex(invoice, counter-1);
-				return;
-			}
-			current = current.getNext();
+		if (comparator == null) {
+			throw new IllegalArgumentException("No comparator to insert the Invoice with");
 		}
+		this.root = insertSorted(this.root, new Node<Invoice>(invoice), comparator, null, null);
+		size++;
+	}
 
-		// Insert to the end;
-		addInvoiceToTail(invoice);
-		return;
+	// Puts the new node into the subtree under node. previous and next are the nodes the new
+	// node will sit between in the list, they are narrowed down on the way to the leaf.
+	private Node<Invoice> insertSorted(Node<Invoice> node, Node<Invoice> newNode, Comparator<Invoice> comparator,
+			Node<Invoice> previous, Node<Invoice> next) {
+		if (node == null) {
+			link(newNode, previous, next);
+			return newNode;
+		}
+		if (comparator.compare(newNode.getInvoice(), node.getInvoice()) < 0) {
+			node.setChildren(insertSorted(node.getLeft(), newNode, comparator, previous, node), node.getRight());
+		} else {
+			node.setChildren(node.getLeft(), insertSorted(node.getRight(), newNode, comparator, node, next));
+		}
+		return balance(node);
 	}
 	
 //-------------------------------------------------------------------------------------	
@@ -124,17 +130,7 @@ public class LinkedList<T> implements Iterable<Invoice> {
 		if (invoice == null) {
 			throw new IllegalArgumentException("This LinkedList impelmentation does not allow null Invoices");
 		}
-		Node<Invoice> newHead = new Node<Invoice>(invoice);
-		if (this.tail == null) {
-			this.head = newHead;
-			this.tail = newHead;
-			size++;
-		} else {
-			newHead.setNext(this.head);
-			this.head.setPrevious(newHead);
-			this.head = newHead;
-			size++;
-		}
+		insertInvoiceAtIndex(invoice, 0);
 	}
 
 //-------------------------------------------------------------------------------
@@ -158,22 +154,11 @@ public class LinkedList<T> implements Iterable<Invoice> {
 	 * @return the removed Invoice.
 	 */
 	public Invoice removeInvoiceFromHead() {
-		Invoice item = null;
 		if (this.getSize() == 0) {
 			throw new IllegalStateException("Cannot remove from an empty list");
-		} else if (this.getSize() == 1) {
-			//if the list only has one Invoice, remove it.
-			item = this.head.getInvoice();
-			this.head = null;
-			this.tail = null;
-			size--;
-		} else {
-			//Remove from the head.
-			item = this.head.getInvoice();
-			this.head = this.head.getNext();
-			this.head.setPrevious(null);
-			size--;
 		}
+		Invoice item = this.head.getInvoice();
+		remove(0);
 		return item;
 	}
 
@@ -187,19 +172,7 @@ public class LinkedList<T> implements Iterable<Invoice> {
 		if (invoice == null) {
 			throw new IllegalArgumentException("This LinkedList impelmentation does not allow null elements");
 		}
-		
-		Node<Invoice> newTail = new Node<Invoice>(invoice);
-		if (this.tail == null) {
-			this.tail = newTail;
-			this.head = newTail;
-			size++;
-		} else {
-			//set the current tails node to the new node
-			newTail.setPrevious(this.tail);
-			this.tail.setNext(newTail);
-			this.tail = newTail;
-			size++;
-		}
+		insertInvoiceAtIndex(invoice, this.getSize());
 	}
 
 //---------------------------------------------------------------------------------
@@ -223,22 +196,11 @@ public class LinkedList<T> implements Iterable<Invoice> {
 	 * @return the removed Invoice.
 	 */
 	public Invoice removeInvoiceFromTail() {
-		Invoice item = null;
 		if (this.getSize() == 0) {
 			throw new IllegalStateException("Cannot remove from an empty list");
-		} else if (this.getSize() == 1) {
-			//if the list only has one Invoice, remove it.
-			item = this.tail.getInvoice();
-			this.head = null;
-			this.tail = null;
-			size--;
-		} else {
-			//Remove from the tail.
-			item = this.tail.getInvoice();
-			this.tail = this.tail.getPrevious();
-			this.tail.setNext(null);
-			size--;
 		}
+		Invoice item = this.tail.getInvoice();
+		remove(this.getSize() - 1);
 		return item;
 	}
 
@@ -253,26 +215,26 @@ public class LinkedList<T> implements Iterable<Invoice> {
 		if (index < 0 || index > this.getSize()) {
 			throw new IllegalArgumentException("Index " + index + " is out of bounds");
 		}
+		checkInvoice(invoice);
+		this.root = insertAtIndex(this.root, new Node<Invoice>(invoice), index, null, null);
+		this.size++;
+	}
 
-		Node<Invoice> newNode = new Node<Invoice>(invoice);
-		if (this.head == null) {
-			//List is empty
-			this.head = newNode;
-			this.size++;
-			return;
-		} else if (index == 0) {
-			//add to the head of the list.
-			newNode.setNext(this.head);
-			this.head = newNode;
-			this.size++;
-			return;
+	// Puts the new node at the given index of the subtree under node.
+	private Node<Invoice> insertAtIndex(Node<Invoice> node, Node<Invoice> newNode, int index,
+			Node<Invoice> previous, Node<Invoice> next) {
+		if (node == null) {
+			link(newNode, previous, next);
+			return newNode;
 		}
-		//adds invoice at given index
-		Node<Invoice> previous = this.getNode(index - 1);
-		newNode.setNext(previous.getNext());
-		previous.setNext(newNode);
-		this.size++;
-		return;
+		int leftCount = Node.count(node.getLeft());
+		if (index <= leftCount) {
+			node.setChildren(insertAtIndex(node.getLeft(), newNode, index, previous, node), node.getRight());
+		} else {
+			node.setChildren(node.getLeft(),
+					insertAtIndex(node.getRight(), newNode, index - leftCount - 1, node, next));
+		}
+		return balance(node);
 	}
 
 //-----------------------------------------------------------------------------	
@@ -283,16 +245,23 @@ public class LinkedList<T> implements Iterable<Invoice> {
 	 * @return LinkedList node
 	 */
 	private Node<Invoice> getNode(int index) {
-		if (index < 0 || index > this.getSize()) {
+		if (index < 0 || index >= this.getSize()) {
 			throw new IllegalArgumentException("Index " + index + " is out of bounds");
 		}
 
-		Node<Invoice> current = this.head;
-		//loops until at the given index and it returns it.
-		for (int i = 0; i < index; i++) {
-			current = current.getNext();
+		Node<Invoice> current = this.root;
+		//goes down the tree, using the counts of the left subtrees to find the index.
+		while (true) {
+			int leftCount = Node.count(current.getLeft());
+			if (index < leftCount) {
+				current = current.getLeft();
+			} else if (index == leftCount) {
+				return current;
+			} else {
+				index -= leftCount + 1;
+				current = current.getRight();
+			}
 		}
-		return current;
 	}
 
 //-------------------------------------------------------------------------------
@@ -316,7 +285,9 @@ public class LinkedList<T> implements Iterable<Invoice> {
 		if (this.head == null) {
 			throw new NullPointerException("The list is already empty!");
 		} else {
+			this.root = null;
 			this.head = null;
+			this.tail = null;
 			this.size = 0;
 		}
 	}
@@ -332,26 +303,125 @@ public class LinkedList<T> implements Iterable<Invoice> {
 		if (index < 0 || index >= this.getSize()) {
 			throw new IllegalArgumentException("Index " + index + " is out of bounds");
 		}
+		this.root = remove(this.root, index);
+		size--;
+	}
 
-		Node<Invoice> current = this.getNode(index);
-		if (index == 0) {
-			if (this.getSize() == 1) {
-				this.clear();
-			} else {
-				//set the previous node to the currents next node.
-				Node<Invoice> previous = this.getNode(index);
-				current = previous.getNext();
-				previous.setNext(current.getNext());
-				size--;
-			}
+	// Removes the node at the given index of the subtree under node and returns the new subtree.
+	private Node<Invoice> remove(Node<Invoice> node, int index) {
+		int leftCount = Node.count(node.getLeft());
+		if (index < leftCount) {
+			node.setChildren(remove(node.getLeft(), index), node.getRight());
+			return balance(node);
+		} else if (index > leftCount) {
+			node.setChildren(node.getLeft(), remove(node.getRight(), index - leftCount - 1));
+			return balance(node);
+		}
+
+		unlink(node);
+		if (node.getLeft() == null) {
+			return node.getRight();
+		} else if (node.getRight() == null) {
+			return node.getLeft();
+		}
+		//the node takes the place of its successor, the first node of its right subtree.
+		Node<Invoice> right = node.getRight();
+		Node<Invoice> successor = right;
+		while (successor.getLeft() != null) {
+			successor = successor.getLeft();
+		}
+		successor.setChildren(node.getLeft(), removeFirst(right));
+		return balance(successor);
+	}
+
+	// Takes the first node out of the subtree under node, without unlinking it from the list.
+	private Node<Invoice> removeFirst(Node<Invoice> node) {
+		if (node.getLeft() == null) {
+			return node.getRight();
+		}
+		node.setChildren(removeFirst(node.getLeft()), node.getRight());
+		return balance(node);
+	}
+
+//-----------------------------------------------------------------------------
+
+	// Links the node into the list between previous and next, either can be null at the ends.
+	private void link(Node<Invoice> node, Node<Invoice> previous, Node<Invoice> next) {
+		node.setPrevious(previous);
+		node.setNext(next);
+		if (previous == null) {
+			this.head = node;
+		} else {
+			previous.setNext(node);
+		}
+		if (next == null) {
+			this.tail = node;
+		} else {
+			next.setPrevious(node);
+		}
+	}
+
+	// Takes the node out of the list.
+	private void unlink(Node<Invoice> node) {
+		Node<Invoice> previous = node.getPrevious();
+		Node<Invoice> next = node.getNext();
+		if (previous == null) {
+			this.head = next;
+		} else {
+			previous.setNext(next);
+		}
+		if (next == null) {
+			this.tail = previous;
 		} else {
-			//set the previous node to the currents next node.
-			Node<Invoice> previous = this.getNode(index);
-			current = previous.getNext();
-			previous.setNext(current.getNext());
-			size--;
+			next.setPrevious(previous);
+		}
+		node.setPrevious(null);
+		node.setNext(null);
+	}
+
+//-----------------------------------------------------------------------------
+
+	// Rotates the subtree under node back into balance when one side is two higher than the other.
+	private Node<Invoice> balance(Node<Invoice> node) {
+		int difference = height(node.getLeft()) - height(node.getRight());
+		if (difference > 1) {
+			Node<Invoice> left = node.getLeft();
+			if (height(left.getLeft()) < height(left.getRight())) {
+				node.setChildren(rotateLeft(left), node.getRight());
+			}
+			return rotateRight(node);
+		} else if (difference < -1) {
+			Node<Invoice> right = node.getRight();
+			if (height(right.getRight()) < height(right.getLeft())) {
+				node.setChildren(node.getLeft(), rotateRight(right));
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	private Node<Invoice> rotateLeft(Node<Invoice> node) {
+		Node<Invoice> right = node.getRight();
+		node.setChildren(node.getLeft(), right.getLeft());
+		right.setChildren(node, right.getRight());
+		return right;
+	}
+
+	private Node<Invoice> rotateRight(Node<Invoice> node) {
+		Node<Invoice> left = node.getLeft();
+		node.setChildren(left.getRight(), node.getRight());
+		left.setChildren(left.getLeft(), node);
+		return left;
+	}
+
+	private static int height(Node<Invoice> node) {
+		return node == null ? 0 : node.getHeight();
+	}
+
+	private static void checkInvoice(Invoice invoice) {
+		if (invoice == null) {
+			throw new IllegalArgumentException("This LinkedList impelmentation does not allow null Invoices");
 		}
-		return;
 	}
 
 //-----------------------------------------------------------------------------
@@ -409,6 +479,9 @@ public class LinkedList<T> implements Iterable<Invoice> {
 
 			@Override
 			public Invoice next() {
+				if (current == null) {
+					throw new NoSuchElementException();
+				}
 				Invoice element = current.getInvoice();
 				current = current.getNext();
 				return element;
@@ -2,7 +2,9 @@
  * Author: Matt Hotovy
  * Date: 4/19/2019
  * 
- * This class is for the node objects in the LinkedList 
+ * This class is for the node objects in the LinkedList. Each node is both a
+ * link in the list (next/previous) and a node of the balanced tree the list
+ * keeps its order in (left/right).
  */
 package project.sort;
 
@@ -10,6 +12,10 @@ public class Node<Invoice> {
 
 	private Node<Invoice> next;
 	private Node<Invoice> previous;
+	private Node<Invoice> left;
+	private Node<Invoice> right;
+	private int height = 1;
+	private int count = 1;
 	private final Invoice invoice;
 
 	// Constructor
@@ -50,6 +56,36 @@ public class Node<Invoice> {
 		return this.next != null;
 	}
 
+	// gets the left child in the tree
+	public Node<Invoice> getLeft() {
+		return this.left;
+	}
+
+	// gets the right child in the tree
+	public Node<Invoice> getRight() {
+		return this.right;
+	}
+
+	// Sets both children and recomputes the height and count of this node from them.
+	public void setChildren(Node<Invoice> left, Node<Invoice> right) {
+		this.left = left;
+		this.right = right;
+		int leftHeight = left == null ? 0 : left.height;
+		int rightHeight = right == null ? 0 : right.height;
+		this.height = Math.max(leftHeight, rightHeight) + 1;
+		this.count = count(left) + count(right) + 1;
+	}
+
+	// returns the height of the subtree under this node
+	public int getHeight() {
+		return this.height;
+	}
+
+	// returns the number of nodes in the subtree under the given node, 0 for null.
+	public static <T> int count(Node<T> node) {
+		return node == null ? 0 : node.count;
+	}
+
 	@Override
 	public String toString() {
 		return this.invoice.toString();
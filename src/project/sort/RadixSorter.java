@@ -0,0 +1,111 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class sorts invoices by their byte keys with an MSD radix sort
+ */
+package project.sort;
+
+import java.util.Arrays;
+
+import project.lib.Invoice;
+
+/**
+ * Sorts by byte keys from a {@link SortKeyEncoder} without calling a
+ * comparator. The keys are split into buckets by their first byte, then each
+ * bucket by its second byte and so on, and buckets that are small enough are
+ * finished with an insertion sort. Keys that run out go first in their bucket.
+ * Each pass keeps the order of equal bytes, so the sort is stable.
+ */
+public class RadixSorter {
+
+	// Buckets this small are insertion sorted instead of split further.
+	private static final int INSERTION_SORT_CUTOFF = 32;
+
+	/**
+	 * Sorts the invoices in the order of the given comparator, using the byte keys
+	 * it makes for them.
+	 * 
+	 * @param invoices
+	 * @param comparator
+	 */
+	public static void sort(Invoice[] invoices, KeyedComparator<?> comparator) {
+		byte[][] keys = new byte[invoices.length][];
+		for (int i = 0; i < invoices.length; i++) {
+			keys[i] = comparator.getSortKey(invoices[i]);
+		}
+		sort(invoices, keys);
+	}
+
+	/**
+	 * Sorts the items by the key at the same index, moving the keys with them.
+	 * 
+	 * @param items
+	 * @param keys
+	 */
+	public static <T> void sort(T[] items, byte[][] keys) {
+		if (items.length != keys.length) {
+			throw new IllegalArgumentException("There are " + items.length + " items but " + keys.length + " keys");
+		}
+		sort(items, keys, items.clone(), new byte[keys.length][], 0, items.length, 0);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Sorts items lo to hi, whose keys are all the same before the given depth.
+	private static <T> void sort(T[] items, byte[][] keys, T[] auxItems, byte[][] auxKeys, int lo, int hi,
+			int depth) {
+		if (hi - lo <= INSERTION_SORT_CUTOFF) {
+			insertionSort(items, keys, lo, hi, depth);
+			return;
+		}
+
+		// bucket 0 is for keys that end before depth, bucket b + 1 for the byte b.
+		int[] count = new int[258];
+		for (int i = lo; i < hi; i++) {
+			count[bucket(keys[i], depth) + 1]++;
+		}
+		for (int b = 0; b < 257; b++) {
+			count[b + 1] += count[b];
+		}
+		for (int i = lo; i < hi; i++) {
+			int to = lo + count[bucket(keys[i], depth)]++;
+			auxItems[to] = items[i];
+			auxKeys[to] = keys[i];
+		}
+		System.arraycopy(auxItems, lo, items, lo, hi - lo);
+		System.arraycopy(auxKeys, lo, keys, lo, hi - lo);
+
+		// count[b] is now where bucket b ends. The keys in bucket 0 are all equal and stay in order.
+		for (int b = 1; b < 257; b++) {
+			int from = lo + count[b - 1];
+			int to = lo + count[b];
+			if (to - from > 1) {
+				sort(items, keys, auxItems, auxKeys, from, to, depth + 1);
+			}
+		}
+	}
+
+	private static int bucket(byte[] key, int depth) {
+		return depth < key.length ? (key[depth] & 0xFF) + 1 : 0;
+	}
+
+	private static <T> void insertionSort(T[] items, byte[][] keys, int lo, int hi, int depth) {
+		for (int i = lo + 1; i < hi; i++) {
+			for (int j = i; j > lo && compare(keys[j - 1], keys[j], depth) > 0; j--) {
+				T item = items[j];
+				items[j] = items[j - 1];
+				items[j - 1] = item;
+				byte[] key = keys[j];
+				keys[j] = keys[j - 1];
+				keys[j - 1] = key;
+			}
+		}
+	}
+
+	private static int compare(byte[] key1, byte[] key2, int depth) {
+		return Arrays.compareUnsigned(key1, Math.min(depth, key1.length), key1.length, key2,
+				Math.min(depth, key2.length), key2.length);
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class builds the byte keys the RadixSorter sorts by
+ */
+package project.sort;
+
+import java.util.Arrays;
+
+/**
+ * Builds a byte key out of one or more fields, such that comparing two keys
+ * byte by byte as unsigned values gives the same order as comparing the fields
+ * one after the other. Strings are ordered like String.compareTo, doubles like
+ * the &gt; and &lt; operators (0.0 and -0.0 are the same).
+ */
+public class SortKeyEncoder {
+
+	private byte[] bytes = new byte[32];
+	private int length = 0;
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds a string. Each char is written as 1 to 3 bytes, with shorter codes for
+	 * smaller chars, and the string ends with a 0 byte. The first byte of a code
+	 * is never 0 and tells how long the code is, so two keys line up char by char
+	 * and the terminator is only ever compared with the first byte of a code. The
+	 * later bytes of a code can be 0, so a 0 byte is not always a terminator. A
+	 * string sorts before every longer string it is the start of, and the fields
+	 * after it are only compared when the strings are equal.
+	 * 
+	 * @param value
+	 * @return this encoder
+	 */
+	public SortKeyEncoder putString(String value) {
+		ensureCapacity(value.length() * 3 + 1);
+		for (int i = 0; i < value.length(); i++) {
+			int c = value.charAt(i);
+			if (c < 0x7F) {
+				bytes[length++] = (byte) (c + 1);
+			} else if (c < 0x407F) {
+				int v = c - 0x7F;
+				bytes[length++] = (byte) (0x80 | (v >>> 8));
+				bytes[length++] = (byte) v;
+			} else {
+				int v = c - 0x407F;
+				bytes[length++] = (byte) 0xC0;
+				bytes[length++] = (byte) (v >>> 8);
+				bytes[length++] = (byte) v;
+			}
+		}
+		bytes[length++] = 0;
+		return this;
+	}
+
+	/**
+	 * Adds a double as 8 bytes, smallest first.
+	 * 
+	 * @param value
+	 * @return this encoder
+	 */
+	public SortKeyEncoder putAscending(double value) {
+		return putLong(orderedBits(value));
+	}
+
+	/**
+	 * Adds a double as 8 bytes, largest first.
+	 * 
+	 * @param value
+	 * @return this encoder
+	 */
+	public SortKeyEncoder putDescending(double value) {
+		return putLong(~orderedBits(value));
+	}
+
+	// Returns the key built so far.
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, length);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Turns the bits of a double into a long that orders the same way when compared unsigned.
+	// Negative numbers have every bit flipped, the rest only have the sign bit flipped.
+	static long orderedBits(double value) {
+		// adding 0.0 turns -0.0 into 0.0
+		long bits = Double.doubleToLongBits(value + 0.0);
+		return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+	}
+
+	private SortKeyEncoder putLong(long value) {
+		ensureCapacity(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			bytes[length++] = (byte) (value >>> shift);
+		}
+		return this;
+	}
+
+	private void ensureCapacity(int extra) {
+		if (length + extra > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This enum is how the summary reports put the invoices in order
+ */
+package project.sort;
+
+public enum SortMode {
+
+	// Each invoice is put into a sorted LinkedList as it is read.
+	INSERT_SORTED,
+
+	// All invoices are collected into an array first and sorted once with Arrays.parallelSort.
+	BULK,
+
+	// Like BULK, but the array is sorted by byte keys with the RadixSorter instead of a comparator.
+	RADIX,
+
+	// Each invoice is added up into an InvoiceSummary, and the summaries are sorted by the
+	// ExternalSorter, which writes sorted runs to temp files once they pass its memory budget.
+	EXTERNAL;
+
+	// Returns the mode set with -Dcinco.sortMode=insert_sorted|bulk|radix|external, BULK when it is not set.
+	public static SortMode getDefault() {
+		String mode = System.getProperty("cinco.sortMode");
+		if (mode == null || mode.trim().isEmpty()) {
+			return BULK;
+		}
+		return SortMode.valueOf(mode.trim().toUpperCase());
+	}
+}
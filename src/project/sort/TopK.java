@@ -0,0 +1,114 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class picks the first invoices of a sort order without sorting all of them
+ */
+package project.sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import project.lib.Invoice;
+
+/**
+ * Top-K and offset/limit queries over invoices. Only the best K invoices seen
+ * so far are kept, in a priority queue with the worst of them on top, so
+ * picking K out of n invoices takes O(n log K) time and O(K) memory. Invoices
+ * that compare equal keep the order they came in, so the result is the same
+ * slice a full stable sort would give.
+ */
+public class TopK {
+
+	/**
+	 * Returns the first k invoices in the order of the comparator.
+	 * 
+	 * @param invoices
+	 * @param comparator
+	 * @param k
+	 * @return at most k invoices, sorted
+	 */
+	public static List<Invoice> top(Iterator<Invoice> invoices, Comparator<Invoice> comparator, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative, not " + k);
+		}
+		if (k == 0) {
+			return new ArrayList<Invoice>();
+		}
+
+		// the worst invoice kept so far is at the head of the queue.
+		java.util.Comparator<Ranked> order = (one, two) -> {
+			int result = comparator.compare(one.invoice, two.invoice);
+			return result != 0 ? result : Long.compare(one.sequence, two.sequence);
+		};
+		PriorityQueue<Ranked> queue = new PriorityQueue<Ranked>(Math.min(k, 1024), order.reversed());
+		long sequence = 0;
+		while (invoices.hasNext()) {
+			Ranked ranked = new Ranked(invoices.next(), sequence++);
+			if (queue.size() < k) {
+				queue.add(ranked);
+			} else if (order.compare(ranked, queue.peek()) < 0) {
+				queue.poll();
+				queue.add(ranked);
+			}
+		}
+
+		List<Invoice> result = new ArrayList<Invoice>(queue.size());
+		while (!queue.isEmpty()) {
+			result.add(queue.poll().invoice);
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	public static List<Invoice> top(Iterable<Invoice> invoices, Comparator<Invoice> comparator, int k) {
+		return top(invoices.iterator(), comparator, k);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns limit invoices starting at offset in the order of the comparator,
+	 * e.g. offset 200 and limit 100 for the third page of 100. Keeps offset + limit
+	 * invoices while it looks.
+	 * 
+	 * @param invoices
+	 * @param comparator
+	 * @param offset
+	 * @param limit
+	 * @return at most limit invoices, sorted
+	 */
+	public static List<Invoice> page(Iterator<Invoice> invoices, Comparator<Invoice> comparator, int offset,
+			int limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("offset and limit must not be negative, not " + offset + " and " + limit);
+		}
+		List<Invoice> top = top(invoices, comparator, Math.addExact(offset, limit));
+		if (offset >= top.size()) {
+			return new ArrayList<Invoice>();
+		}
+		return new ArrayList<Invoice>(top.subList(offset, top.size()));
+	}
+
+	public static List<Invoice> page(Iterable<Invoice> invoices, Comparator<Invoice> comparator, int offset,
+			int limit) {
+		return page(invoices.iterator(), comparator, offset, limit);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// An invoice with the position it came in at, to break ties.
+	private static class Ranked {
+		private final Invoice invoice;
+		private final long sequence;
+
+		private Ranked(Invoice invoice, long sequence) {
+			this.invoice = invoice;
+			this.sequence = sequence;
+		}
+	}
+
+}
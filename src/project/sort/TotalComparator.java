@@ -6,29 +6,74 @@
  */
 package project.sort;
 
-import project.lib.Customer;
+import java.util.Arrays;
+
 import project.lib.Invoice;
-import project.lib.Product;
-import project.utils.Transaction;
 
-public class TotalComparator<T> extends Comparator<Invoice> {
+public class TotalComparator<T> extends KeyedComparator<Double> {
+
+	//The invoices are sorted by their totals, which each invoice only adds up once.
+	public Double getKey(Invoice invoice) {
+		return invoice.getTotal();
+	}
 
 	//comparator for the totals in each invoice.
 	public int compare(Invoice one, Invoice two) {
-		double total1 = 0.00;
-		Customer customer = one.getCustomer();
-		//go through each product in the given invoice.
-		for (Product product : one.getProductList()) {
-			total1 += Transaction.getTotal(product, customer);
+		return compareTotals(one.getTotal(), two.getTotal());
+	}
+
+	public int compareKeys(Double total1, Double total2) {
+		return compareTotals(total1.doubleValue(), total2.doubleValue());
+	}
+
+	//largest total first
+	public void encodeKey(Double total, SortKeyEncoder encoder) {
+		encoder.putDescending(total.doubleValue());
+	}
+
+	//the byte key is made from the total itself, without boxing it
+	@Override
+	public byte[] getSortKey(Invoice invoice) {
+		return new SortKeyEncoder().putDescending(invoice.getTotal()).toByteArray();
+	}
+
+	// Sorts the invoices by a long per invoice that orders like its total, largest first, so no
+	// total is boxed. The keys are sorted on their own, then each invoice is put in the next free
+	// slot for its key in the order the invoices came in, which keeps the sort stable.
+	@Override
+	public void sort(Invoice[] invoices) {
+		long[] keys = new long[invoices.length];
+		for (int i = 0; i < invoices.length; i++) {
+			// ~ turns the unsigned order around, flipping the sign bit makes it the signed order
+			keys[i] = ~SortKeyEncoder.orderedBits(invoices[i].getTotal()) ^ Long.MIN_VALUE;
 		}
+		long[] sorted = keys.clone();
+		Arrays.parallelSort(sorted);
 
-		double total2 = 0.00;
-		Customer customer2 = two.getCustomer();
-		//go through each product in the given invoice.
-		for (Product product : two.getProductList()) {
-			total2 += Transaction.getTotal(product, customer2);
+		Invoice[] unsorted = invoices.clone();
+		int[] used = new int[invoices.length];
+		for (int i = 0; i < unsorted.length; i++) {
+			int first = firstIndexOf(sorted, keys[i]);
+			invoices[first + used[first]++] = unsorted[i];
 		}
+	}
+
+	// Returns the first index of the key in the sorted keys, which must hold it.
+	private static int firstIndexOf(long[] sorted, long key) {
+		int low = 0;
+		int high = sorted.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
 
+	private static int compareTotals(double total1, double total2) {
 		//in descending order return corresponding values
 		if (total1 > total2) {
 			return -1;
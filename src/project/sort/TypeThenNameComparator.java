@@ -6,29 +6,42 @@
  */
 package project.sort;
 
-import project.lib.Customer;
 import project.lib.Invoice;
-import project.lib.Person;
 
-public class TypeThenNameComparator<T> extends Comparator<Invoice>{
+public class TypeThenNameComparator<T> extends KeyedComparator<String>{
 	
+	//The key is the customer type then the salesPerson last name, split by a '\0' so that
+	//comparing the keys compares the types first and only then the names.
+	public String getKey(Invoice invoice) {
+		return invoice.getCustomer().getType() + '\0' + invoice.getSalesPerson().getLastName();
+	}
+
 	//Comparator for the customer type then salesPerson name
 	public int compare(Invoice one, Invoice two) {
-		Customer newCustomer = one.getCustomer();
-		Customer currentCustomer = two.getCustomer();
-		String newType = newCustomer.getType();
-		String currentType = currentCustomer.getType();
+		String newType = one.getCustomer().getType();
+		String currentType = two.getCustomer().getType();
 		
 		//if the types are the same then compare by the salesperson name.
 		if(newType.compareTo(currentType) == 0) {
-			Person newPerson = one.getSalesPerson();
-			Person currentPerson = two.getSalesPerson();
-			String newName = newPerson.getLastName();
-			String currentName = currentPerson.getLastName();
+			String newName = one.getSalesPerson().getLastName();
+			String currentName = two.getSalesPerson().getLastName();
 			return newName.compareTo(currentName);
 		} else {
 			return newType.compareTo(currentType);
 		}
-	
+	}
+
+	public int compareKeys(String key1, String key2) {
+		return key1.compareTo(key2);
+	}
+
+	//the byte key has the type and the name as two fields, so it does not need the '\0'.
+	public byte[] getSortKey(Invoice invoice) {
+		return new SortKeyEncoder().putString(invoice.getCustomer().getType())
+				.putString(invoice.getSalesPerson().getLastName()).toByteArray();
+	}
+
+	public void encodeKey(String key, SortKeyEncoder encoder) {
+		encoder.putString(key);
 	}
 }
@@ -0,0 +1,161 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class runs the entity lookups in the background and returns futures for them.
+ */
+package project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import project.lib.Customer;
+import project.lib.Invoice;
+import project.lib.Person;
+import project.lib.Product;
+
+/**
+ * Asynchronous versions of the blocking getXByKey lookups. Each lookup runs on a
+ * shared pool of daemon threads, so lookups that do not depend on each other (an
+ * invoice's customer, salesperson and line items) run at the same time instead of
+ * one after the other. A failed lookup completes its future exceptionally with the
+ * exception the blocking method would have thrown.
+ */
+public class AsyncRepository {
+
+	// Against the database every lookup reads its rows with the joined queries of an
+	// InvoiceGraphLoader on a single read connection, instead of the getXByKey methods that open
+	// one connection per nested row. A thread never holds more than one connection, and there
+	// are fewer threads than pooled connections (see DatabaseInfo.asyncThreads), so the lookups
+	// can not take the whole pool away from the writes and the blocking lookups.
+	private static final int threads = DatabaseInfo.asyncThreads;
+
+	private static final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+		Thread thread = new Thread(r, "async-repository");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static <T> CompletableFuture<T> supply(Supplier<T> lookup) {
+		return CompletableFuture.supplyAsync(lookup, executor);
+	}
+
+	// This method runs the lookup on one connection when the repository is the database,
+	// otherwise it runs the repository lookup, which needs no connection.
+	private static <T> CompletableFuture<T> supply(Function<Connection, T> query, Supplier<T> lookup) {
+		if (!RepositoryFactory.usesDatabase()) {
+			return supply(lookup);
+		}
+		return supply(() -> {
+			Connection conn = ConnectionFactory.getReadConnection();
+			try {
+				return query.apply(conn);
+			} finally {
+				ConnectionFactory.closeConnection(conn, null, null);
+			}
+		});
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	public static CompletableFuture<Customer> getCustomerByKey(int customerKey) {
+		return supply(conn -> new InvoiceGraphLoader().loadCustomer(conn, customerKey),
+				() -> Customer.getCustomerByKey(customerKey));
+	}
+
+	public static CompletableFuture<Person> getPersonByKey(int personKey) {
+		return supply(conn -> new InvoiceGraphLoader().loadPerson(conn, personKey),
+				() -> Person.getPersonByKey(personKey));
+	}
+
+	public static CompletableFuture<Product> getProductByKey(int productKey) {
+		return supply(conn -> new InvoiceGraphLoader().loadProduct(conn, productKey),
+				() -> Product.getProductByKey(productKey));
+	}
+
+	// Returns the line items of an invoice with their units, hours or dates filled in.
+	public static CompletableFuture<List<Product>> getProductList(int invoiceKey) {
+		return supply(conn -> new InvoiceGraphLoader().loadLineItems(conn, invoiceKey),
+				() -> Invoice.getInvoiceByKey(invoiceKey).getProductList());
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method reads the invoice row, then looks up its customer, salesperson and line items
+	// at the same time and builds the invoice once all three are done. When the repository is
+	// not the database it simply asks the repository for the invoice.
+	public static CompletableFuture<Invoice> getInvoiceByKey(int invoiceKey) {
+		if (!RepositoryFactory.usesDatabase()) {
+			return supply(() -> Invoice.getInvoiceByKey(invoiceKey));
+		}
+		return supply(() -> readInvoiceRow(invoiceKey)).thenCompose(row -> {
+			CompletableFuture<Customer> customer = getCustomerByKey(row.customerKey);
+			CompletableFuture<Person> salesPerson = getPersonByKey(row.personKey);
+			CompletableFuture<List<Product>> products = getProductList(invoiceKey);
+			return CompletableFuture.allOf(customer, salesPerson, products)
+					.thenApply(done -> new Invoice(row.invoiceUuid, customer.join(), salesPerson.join(),
+							products.join()));
+		});
+	}
+
+	// This method starts the lookup of every given invoice and waits for them all, keeping their order.
+	public static List<Invoice> getInvoicesByKey(List<Integer> invoiceKeys) {
+		List<CompletableFuture<Invoice>> futures = new ArrayList<CompletableFuture<Invoice>>();
+		for (int invoiceKey : invoiceKeys) {
+			futures.add(getInvoiceByKey(invoiceKey));
+		}
+		List<Invoice> invoices = new ArrayList<Invoice>();
+		for (CompletableFuture<Invoice> future : futures) {
+			invoices.add(future.join());
+		}
+		return invoices;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// The columns of an Invoice row the other lookups need.
+	private static class InvoiceRow {
+		private String invoiceUuid;
+		private int customerKey;
+		private int personKey;
+	}
+
+	// This method reads just the invoice row, the lookups it references are started by the caller.
+	private static InvoiceRow readInvoiceRow(int invoiceKey) {
+		Connection conn = ConnectionFactory.getReadConnection();
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		String query = "SELECT invoiceUuid, customerKey, personKey FROM Invoice WHERE invoiceKey = ?";
+
+		try {
+			ps = conn.prepareStatement(query);
+			ps.setInt(1, invoiceKey);
+			rs = ps.executeQuery();
+			if (!rs.next()) {
+				throw new IllegalStateException("No such invoice in database with id = " + invoiceKey);
+			}
+			InvoiceRow row = new InvoiceRow();
+			row.invoiceUuid = rs.getString("invoiceUuid");
+			row.customerKey = rs.getInt("customerKey");
+			row.personKey = rs.getInt("personKey");
+			return row;
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(conn, ps, rs);
+		}
+	}
+
+}
@@ -7,34 +7,70 @@
 package project.utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 
 public class ConnectionFactory {
-	
-	//This method makes a connection to our Database.
-	public static Connection getConnection() {
 
+	// Every connection handed out by this class is borrowed from one of these pools. The read pool
+	// and its monitor are null when no read replica is configured.
+	private static final ConnectionPool pool;
+	private static final ConnectionPool readPool;
+	private static final ReplicaMonitor replicaMonitor;
+
+	static {
 		try {
-			Class.forName("com.mysql.cj.jdbc.Driver").newInstance();
-		} catch (InstantiationException e) {
-			throw new RuntimeException(e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException(e);
+			Class.forName("com.mysql.cj.jdbc.Driver");
 		} catch (ClassNotFoundException e) {
 			throw new RuntimeException(e);
 		}
-
-		Connection conn = null;
+		pool = new ConnectionPool(DatabaseInfo.url, DatabaseInfo.username, DatabaseInfo.password);
+		if (DatabaseInfo.readUrl != null && !DatabaseInfo.readUrl.isEmpty()) {
+			readPool = new ConnectionPool(DatabaseInfo.readUrl, DatabaseInfo.readUsername, DatabaseInfo.readPassword);
+			replicaMonitor = new ReplicaMonitor(readPool, DatabaseInfo.maxReplicaLagSeconds,
+					DatabaseInfo.replicaCheckIntervalMillis, DatabaseInfo.replicaAssumeInSync);
+		} else {
+			readPool = null;
+			replicaMonitor = null;
+		}
+	}
+	
+	//This method borrows a connection to the primary Database from the connection pool.
+	//Anything that writes, or has to see its own writes, uses this one.
+	//Closing the connection returns it to the pool.
+	public static Connection getConnection() {
+		return pool.getConnection();
+	}
+	
+	//This method borrows a connection for read-only work. It comes from the read replica while
+	//the replica is reachable and not too far behind, otherwise from the primary.
+	public static Connection getReadConnection() {
+		if (readPool == null || !replicaMonitor.isUsable()) {
+			return pool.getConnection();
+		}
 		try {
-			conn = DriverManager.getConnection(DatabaseInfo.url, DatabaseInfo.username, DatabaseInfo.password);
-		} catch (SQLException sqle) {
-			throw new RuntimeException(sqle);
+			return readPool.getConnection();
+		} catch (RuntimeException e) {
+			replicaMonitor.markFailed(e);
+			return pool.getConnection();
 		}
-		return conn;
+	}
+	
+	//This method returns the current statistics of the connection pool.
+	public static PoolStatistics getPoolStatistics() {
+		return pool.getStatistics();
+	}
+	
+	//This method returns the current statistics of the read replica pool, or null if there is no replica.
+	public static PoolStatistics getReadPoolStatistics() {
+		return readPool == null ? null : readPool.getStatistics();
+	}
+	
+	//This method returns the replication lag seen by the last check, or -1 if it is unknown.
+	public static long getReplicaLagSeconds() {
+		return replicaMonitor == null ? -1 : replicaMonitor.getLagSeconds();
 	}
 	
 //------------------------------------------------------------------------------------------------------	
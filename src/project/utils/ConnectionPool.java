@@ -0,0 +1,405 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class is a bounded pool of database connections used by the ConnectionFactory
+ */
+package project.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool {
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final int maxPoolSize;
+	private final long maxWaitMillis;
+	private final long idleTimeoutMillis;
+	private final long leakThresholdMillis;
+	private final boolean leakTrace;
+
+	// One permit per connection the pool is allowed to hand out.
+	private final Semaphore permits;
+	// Idle connections, most recently returned first.
+	private final Deque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+	private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService housekeeper;
+	private volatile boolean shutdown = false;
+
+	// Running totals for the pool statistics.
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final AtomicLong totalBorrowNanos = new AtomicLong();
+	private final AtomicLong maxBorrowNanos = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong leakCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong destroyedCount = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	// Constructor, the pool settings come from the DatabaseInfo class.
+	public ConnectionPool(String url, String username, String password) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.maxPoolSize = DatabaseInfo.maxPoolSize;
+		this.maxWaitMillis = DatabaseInfo.maxWaitMillis;
+		this.idleTimeoutMillis = DatabaseInfo.idleTimeoutMillis;
+		this.leakThresholdMillis = DatabaseInfo.leakThresholdMillis;
+		this.leakTrace = DatabaseInfo.leakTrace;
+		this.permits = new Semaphore(maxPoolSize, true);
+
+		// A single daemon thread evicts idle connections and reports leaked ones.
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+		this.housekeeper.scheduleWithFixedDelay(this::housekeeping, period, period, TimeUnit.MILLISECONDS);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Borrows a connection from the pool, waiting at most maxWaitMillis for one to
+	 * become free. Closing the returned connection gives it back to the pool.
+	 *
+	 * @return a validated connection
+	 */
+	public Connection getConnection() {
+		if (shutdown) {
+			throw new IllegalStateException("The connection pool has been shut down");
+		}
+		long start = System.nanoTime();
+		boolean acquired = false;
+		try {
+			acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		if (!acquired) {
+			timeoutCount.incrementAndGet();
+			throw new RuntimeException(new SQLTimeoutException(
+					"Timed out after " + maxWaitMillis + "ms waiting for a database connection, " + getStatistics()));
+		}
+		long waited = System.nanoTime() - start;
+
+		PooledConnection pooled = null;
+		try {
+			pooled = takeIdleConnection();
+			if (pooled == null) {
+				pooled = openConnection();
+			}
+		} catch (SQLException e) {
+			permits.release();
+			throw new RuntimeException(e);
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+
+		// Filling in a stack trace on every borrow is costly, so the borrow site is only kept when asked for.
+		pooled.checkOut(leakThresholdMillis > 0 && leakTrace ? new Throwable("Connection borrowed here") : null);
+		activeConnections.add(pooled);
+
+		long latency = System.nanoTime() - start;
+		borrowCount.incrementAndGet();
+		totalWaitNanos.addAndGet(waited);
+		totalBorrowNanos.addAndGet(latency);
+		maxWaitNanos.accumulateAndGet(waited, Math::max);
+		maxBorrowNanos.accumulateAndGet(latency, Math::max);
+		return pooled.getProxy();
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method returns a snapshot of the pool's current state and its running totals.
+	public PoolStatistics getStatistics() {
+		int idle;
+		synchronized (idleConnections) {
+			idle = idleConnections.size();
+		}
+		long borrows = borrowCount.get();
+		return new PoolStatistics(activeConnections.size(), idle, permits.getQueueLength(), borrows,
+				average(totalWaitNanos.get(), borrows), toMillis(maxWaitNanos.get()),
+				average(totalBorrowNanos.get(), borrows), toMillis(maxBorrowNanos.get()), timeoutCount.get(),
+				leakCount.get(), createdCount.get(), destroyedCount.get(), statementCacheHits.get(),
+				statementCacheMisses.get());
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method closes every idle connection and stops handing out new ones.
+	public void shutdown() {
+		shutdown = true;
+		housekeeper.shutdownNow();
+		List<PooledConnection> closing = new ArrayList<PooledConnection>();
+		synchronized (idleConnections) {
+			closing.addAll(idleConnections);
+			idleConnections.clear();
+		}
+		for (PooledConnection pooled : closing) {
+			destroy(pooled);
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method takes the most recently used idle connection that still passes validation.
+	private PooledConnection takeIdleConnection() {
+		while (true) {
+			PooledConnection pooled;
+			synchronized (idleConnections) {
+				pooled = idleConnections.pollFirst();
+			}
+			if (pooled == null) {
+				return null;
+			}
+			if (pooled.isValid()) {
+				return pooled;
+			}
+			destroy(pooled);
+		}
+	}
+
+	private PooledConnection openConnection() throws SQLException {
+		Connection conn = DriverManager.getConnection(url, username, password);
+		createdCount.incrementAndGet();
+		return new PooledConnection(conn);
+	}
+
+	// This method is called when a borrowed connection is closed by its caller.
+	private void release(PooledConnection pooled) {
+		if (!activeConnections.remove(pooled)) {
+			return;
+		}
+		if (!shutdown && pooled.reset()) {
+			synchronized (idleConnections) {
+				idleConnections.addFirst(pooled);
+			}
+		} else {
+			destroy(pooled);
+		}
+		permits.release();
+	}
+
+	private void destroy(PooledConnection pooled) {
+		destroyedCount.incrementAndGet();
+		try {
+			pooled.connection.close();
+		} catch (SQLException e) {
+			// The connection is being discarded so there is nothing else to do.
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method runs on the housekeeper thread to evict idle connections and report leaks.
+	private void housekeeping() {
+		long now = System.currentTimeMillis();
+
+		List<PooledConnection> expired = new ArrayList<PooledConnection>();
+		synchronized (idleConnections) {
+			Iterator<PooledConnection> it = idleConnections.descendingIterator();
+			while (it.hasNext()) {
+				PooledConnection pooled = it.next();
+				if (now - pooled.lastUsedAt > idleTimeoutMillis) {
+					it.remove();
+					expired.add(pooled);
+				}
+			}
+		}
+		for (PooledConnection pooled : expired) {
+			destroy(pooled);
+		}
+
+		if (leakThresholdMillis <= 0) {
+			return;
+		}
+		for (PooledConnection pooled : activeConnections) {
+			long held = now - pooled.borrowedAt;
+			if (held > leakThresholdMillis && !pooled.leakReported) {
+				pooled.leakReported = true;
+				leakCount.incrementAndGet();
+				System.err.println("Possible connection leak: connection borrowed by thread " + pooled.borrowedOn
+						+ " held for " + held + "ms without being closed");
+				if (pooled.borrowedBy != null) {
+					pooled.borrowedBy.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+	private static double average(long totalNanos, long count) {
+		return count == 0 ? 0.0 : toMillis(totalNanos) / count;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * A physical connection owned by the pool. Callers only ever see the proxy,
+	 * whose close method hands the connection back instead of closing it.
+	 */
+	private class PooledConnection implements InvocationHandler {
+
+		private final Connection connection;
+		private final Connection proxy;
+		// Parsed statements kept for reuse across borrows of this connection.
+		private final StatementCache statementCache;
+		// Statements handed out during the current borrow, closed when it is returned.
+		private final List<Statement> openStatements = new ArrayList<Statement>();
+		private final AtomicBoolean checkedOut = new AtomicBoolean(false);
+		private volatile long borrowedAt;
+		private volatile long lastUsedAt;
+		private volatile String borrowedOn;
+		private volatile Throwable borrowedBy;
+		private volatile boolean leakReported;
+
+		PooledConnection(Connection connection) {
+			this.connection = connection;
+			this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, this);
+			this.statementCache = new StatementCache(connection, proxy, DatabaseInfo.statementCacheSize,
+					statementCacheHits, statementCacheMisses);
+			this.lastUsedAt = System.currentTimeMillis();
+		}
+
+		Connection getProxy() {
+			return proxy;
+		}
+
+		void checkOut(Throwable borrowedBy) {
+			this.borrowedAt = System.currentTimeMillis();
+			this.borrowedOn = Thread.currentThread().getName();
+			this.borrowedBy = borrowedBy;
+			this.leakReported = false;
+			this.checkedOut.set(true);
+		}
+
+		// Connections used within the validation interval are trusted without a round trip.
+		boolean isValid() {
+			if (System.currentTimeMillis() - lastUsedAt < DatabaseInfo.validationIntervalMillis) {
+				return true;
+			}
+			try {
+				return connection.isValid(DatabaseInfo.validationTimeoutSeconds);
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		// This method puts the connection back into a clean state before it is reused.
+		boolean reset() {
+			try {
+				statementCache.checkInAll();
+				synchronized (openStatements) {
+					for (Statement statement : openStatements) {
+						if (!statement.isClosed()) {
+							statement.close();
+						}
+					}
+					openStatements.clear();
+				}
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				if (connection.isReadOnly()) {
+					connection.setReadOnly(false);
+				}
+				connection.clearWarnings();
+				lastUsedAt = System.currentTimeMillis();
+				return true;
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			int argCount = args == null ? 0 : args.length;
+			if (name.equals("close") && argCount == 0) {
+				if (checkedOut.compareAndSet(true, false)) {
+					release(this);
+				}
+				return null;
+			} else if (name.equals("isClosed") && argCount == 0) {
+				return !checkedOut.get() || connection.isClosed();
+			} else if (name.equals("equals") && argCount == 1) {
+				return proxy == args[0];
+			} else if (name.equals("hashCode") && argCount == 0) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("toString") && argCount == 0) {
+				return "Pooled " + connection;
+			}
+
+			if (!checkedOut.get()) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+			// Plain prepareStatement(sql) calls are served from the statement cache when possible.
+			if (name.equals("prepareStatement") && argCount == 1) {
+				PreparedStatement cached = statementCache.prepare((String) args[0]);
+				if (cached != null) {
+					return cached;
+				}
+			}
+			try {
+				Object result = method.invoke(connection, args);
+				if (result instanceof Statement) {
+					track((Statement) result);
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		private void track(Statement statement) throws SQLException {
+			synchronized (openStatements) {
+				// Drop statements the caller already closed so the list stays small.
+				if (openStatements.size() >= 32) {
+					Iterator<Statement> it = openStatements.iterator();
+					while (it.hasNext()) {
+						if (it.next().isClosed()) {
+							it.remove();
+						}
+					}
+				}
+				openStatements.add(statement);
+			}
+		}
+	}
+
+}
@@ -9,8 +9,44 @@ public class DatabaseInfo {
 
 	//This class holds the info that is used in the ConnectionFactory class to connect to the Database.
 	
-	public static final String url = "jdbc:mysql://cse.unl.edu/cgalinsky?useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=CST";
-	public static final String username = "cgalinsky";
-	public static final String password = "7gq-yP";
+	//Each of these can be overridden with a system property, e.g. -Dcinco.db.url=jdbc:mysql://localhost:3306/cinco
+	public static final String url = System.getProperty("cinco.db.url", "jdbc:mysql://cse.unl.edu/cgalinsky?useUnicode=true&useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false&serverTimezone=CST&rewriteBatchedStatements=true");
+	public static final String username = System.getProperty("cinco.db.username", "cgalinsky");
+	public static final String password = System.getProperty("cinco.db.password", "7gq-yP");
+	
+	//The read replica the reports read from. When no replica url is set every read goes to the url above.
+	public static final String readUrl = System.getProperty("cinco.db.readUrl");
+	public static final String readUsername = System.getProperty("cinco.db.readUsername", username);
+	public static final String readPassword = System.getProperty("cinco.db.readPassword", password);
+	
+	//Reads go back to the primary while the replica is further behind than this, checked at most once per interval.
+	public static final long maxReplicaLagSeconds = Long.getLong("cinco.db.maxReplicaLagSeconds", 30);
+	public static final long replicaCheckIntervalMillis = Long.getLong("cinco.db.replicaCheckIntervalMillis", 5000);
+	//A replica url pointing at a server that is not replicating is not read from, unless this is set, e.g. when two
+	//standalone local databases stand in for a primary and a replica.
+	public static final boolean replicaAssumeInSync = Boolean.getBoolean("cinco.db.replicaAssumeInSync");
+	
+	//An incremental refresh also reloads invoices changed this long before the last refresh, to pick up
+	//transactions that were still running when it looked.
+	public static final long refreshOverlapMillis = 5000;
+	
+	//These settings size and tune the connection pool behind the ConnectionFactory class.
+	public static final int maxPoolSize = 10;
+	public static final long maxWaitMillis = 30000;
+	public static final long idleTimeoutMillis = 300000;
+	public static final long leakThresholdMillis = 60000;
+	//Leaks are reported with the borrowing thread, this also records the stack of every borrow to report where it was.
+	public static final boolean leakTrace = Boolean.getBoolean("cinco.db.leakTrace");
+	public static final long validationIntervalMillis = 500;
+	public static final int validationTimeoutSeconds = 5;
+	public static final int statementCacheSize = 64;
+	
+	//Threads running AsyncRepository lookups, each holding at most one read connection. It is kept below the pool
+	//size so a burst of lookups always leaves connections for the writes and the blocking lookups.
+	public static final int asyncThreads = Math.max(1,
+			Math.min(Integer.getInteger("cinco.db.asyncThreads", maxPoolSize / 2), maxPoolSize - 1));
+	
+	//Number of invoice key ranges loaded at the same time, each on its own pooled connection.
+	public static final int loadParallelism = 4;
 	
 }
\ No newline at end of file
@@ -11,10 +11,18 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import project.lib.Address;
 import project.lib.Consultation;
@@ -26,9 +34,14 @@ import project.lib.Invoice;
 import project.lib.License;
 import project.lib.Person;
 import project.lib.Product;
-import project.sort.Comparator;
 import project.sort.CustomerComparator;
+import project.sort.ExternalSorter;
+import project.sort.InvoiceSummary;
+import project.sort.KeyedComparator;
 import project.sort.LinkedList;
+import project.sort.RadixSorter;
+import project.sort.SortMode;
+import project.sort.TopK;
 import project.sort.TotalComparator;
 import project.sort.TypeThenNameComparator;
 
@@ -38,7 +51,7 @@ public class DatabaseReader {
 	// those Person objects.
 	public static Map<String, Person> getPersonData() {
 		Map<String, Person> personMap = new HashMap<String, Person>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -104,7 +117,7 @@ public class DatabaseReader {
 	// of those Customer Objects.
 	public static Map<String, Customer> getCustomerData() {
 		Map<String, Customer> customerMap = new HashMap<String, Customer>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -150,7 +163,7 @@ public class DatabaseReader {
 	// to products.
 	public static Map<String, Product> getProductData() {
 		Map<String, Product> productMap = new HashMap<String, Product>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -204,7 +217,7 @@ public class DatabaseReader {
 	// productData.
 	public static List<Product> getProductList(int invoiceKey) {
 		List<Product> productList = new ArrayList<Product>();
-		Connection conn = ConnectionFactory.getConnection();
+		Connection conn = ConnectionFactory.getReadConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
@@ -221,23 +234,7 @@ public class DatabaseReader {
 			while (rs.next()) {
 				int productKey = rs.getInt("productKey");
 				Product product = Product.getProductByKey(productKey);
-				String productType = product.getType();
-
-				// Determines the type of Product to input the given data into the specific type
-				// of product.
-				if (productType.equals("E")) {
-					int numberOfUnits = rs.getInt("numberOfUnits");
-					product = new Equipment((Equipment) product, numberOfUnits);
-				} else if (productType.equals("C")) {
-					int billableHours = rs.getInt("billableHours");
-					product = new Consultation((Consultation) product, billableHours);
-				} else {
-					String beginDate = rs.getString("effectiveBeginDate");
-					String endDate = rs.getString("effectiveEndDate");
-					int effectiveDays = License.getEffectiveDays(beginDate, endDate);
-					product = new License((License) product, effectiveDays);
-				}
-				productList.add(product);
+				productList.add(InvoiceGraphLoader.createLineItem(product, rs));
 			}
 		} catch (SQLException sqle) {
 			throw new RuntimeException(sqle);
@@ -250,102 +247,254 @@ public class DatabaseReader {
 
 //----------------------------------------------------------------------------------------------
 
-	// This method query's the database for all invoice data and returns a map of
+	// This method loads the invoice graph from the current repository and returns a map of
 	// invoice objects.
 	public static Map<String, Invoice> getInvoiceData() {
 		Map<String, Invoice> invoiceMap = new HashMap<String, Invoice>();
+		for (Invoice invoice : RepositoryFactory.getRepository().getAllInvoices()) {
+			invoiceMap.put(invoice.getInvoiceUuid(), invoice);
+		}
+		return invoiceMap;
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	// This method loads the invoice graph from the current repository and prints the summary of the invoices
+	public static void getInvoiceDataList(int listSort) {
+		getInvoiceDataList(listSort, new InvoiceDataset());
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	// This method prints the summary of the invoices in the given dataset, which is only loaded the
+	// first time it is used, so several sort orders can be printed from one load. The invoices are
+	// sorted the way -Dcinco.sortMode says, see SortMode.getDefault.
+	public static void getInvoiceDataList(int listSort, InvoiceDataset dataset) {
+		getInvoiceDataList(listSort, dataset, SortMode.getDefault());
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Prints the summary of the invoices in the given dataset, sorted with the
+	 * given mode. INSERT_SORTED puts the invoices into a sorted LinkedList one at
+	 * a time. BULK copies them into an array and sorts it once with
+	 * Comparator.sort, which takes each invoice's sort key once and then sorts the
+	 * keys with Arrays.parallelSort, splitting the merge sort over the common pool
+	 * on multicore hosts. RADIX sorts the array by byte keys with the RadixSorter,
+	 * without calling the comparator. EXTERNAL sorts invoice summaries with the
+	 * ExternalSorter, see printExternallySorted. All of them are stable, so the
+	 * report is the same either way.
+	 * 
+	 * @param listSort 1 for customer name, 2 for total, anything else for customer type then salesperson
+	 * @param dataset
+	 * @param sortMode
+	 */
+	public static void getInvoiceDataList(int listSort, InvoiceDataset dataset, SortMode sortMode) {
+		KeyedComparator<?> comparator = getComparator(listSort);
+
+		if (sortMode == SortMode.EXTERNAL) {
+			printExternallySorted(comparator, dataset);
+			return;
+		}
+
+		Iterable<Invoice> sorted = null;
+		if (sortMode == SortMode.BULK || sortMode == SortMode.RADIX) {
+			Invoice[] invoices = dataset.getInvoices().toArray(new Invoice[0]);
+			if (sortMode == SortMode.RADIX) {
+				RadixSorter.sort(invoices, comparator);
+			} else {
+				comparator.sort(invoices);
+			}
+			sorted = Collections.unmodifiableList(Arrays.asList(invoices));
+		} else {
+			LinkedList<Invoice> invoiceList = new LinkedList<Invoice>();
+			invoiceList.setComparator(comparator);
+			for (Invoice invoice : dataset.getInvoices()) {
+				invoiceList.insertSorted(invoice, comparator);
+			}
+			sorted = invoiceList;
+		}
+		//When done sorting print the report.
+		Report.printSummaryReport(sorted);
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	// This method prints the summary sorted with the ExternalSorter. If the dataset has not been loaded
+	// yet the invoices are streamed from the database instead, and each one is dropped once it has been
+	// added up, so only the summaries up to the sorter's memory budget are held at once.
+	private static void printExternallySorted(KeyedComparator<?> comparator, InvoiceDataset dataset) {
+		try (Stream<Invoice> source = openInvoices(dataset); ExternalSorter sorter = new ExternalSorter()) {
+			Iterator<InvoiceSummary> summaries = source.map(invoice -> InvoiceSummary.of(invoice, comparator))
+					.iterator();
+			Report.printSummaryReport(sorter.sort(summaries));
+		}
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns one page of the invoices in the given sort order, without sorting
+	 * all of them. Offset 0 and limit 100 is the top 100. Only offset + limit
+	 * invoices are kept while looking, see TopK. Like printExternallySorted the
+	 * invoices are streamed from the database if the dataset has not been loaded.
+	 * 
+	 * @param listSort 1 for customer name, 2 for total, anything else for customer type then salesperson
+	 * @param dataset
+	 * @param offset the number of invoices to skip
+	 * @param limit the most invoices to return
+	 * @return the invoices on the page, in order
+	 */
+	public static List<Invoice> getInvoicePage(int listSort, InvoiceDataset dataset, int offset, int limit) {
+		try (Stream<Invoice> invoices = openInvoices(dataset)) {
+			return TopK.page(invoices.iterator(), getComparator(listSort), offset, limit);
+		}
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	// This method prints the summary of just one page of the invoices, the totals are for that page.
+	public static void printInvoicePage(int listSort, InvoiceDataset dataset, int offset, int limit) {
+		Report.printSummaryReport(getInvoicePage(listSort, dataset, offset, limit));
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	// depending on the given type or sort we return that sorting method.
+	private static KeyedComparator<?> getComparator(int listSort) {
+		if (listSort == 1) {
+			return new CustomerComparator<Invoice>();
+		} else if (listSort == 2) {
+			return new TotalComparator<Invoice>();
+		} else {
+			return new TypeThenNameComparator<Invoice>();
+		}
+	}
+
+	// Returns the invoices of the dataset if it is loaded, otherwise streams them from the database.
+	private static Stream<Invoice> openInvoices(InvoiceDataset dataset) {
+		if (dataset.isLoaded() || !RepositoryFactory.usesDatabase()) {
+			return dataset.getInvoices().stream();
+		}
+		return streamInvoices();
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Brings the dataset up to date with the database. The first refresh of a
+	 * dataset loads it in full. Later refreshes only read the tombstones of
+	 * deleted invoices and the invoices whose lastModified is at or after the
+	 * previous refresh, and patch them into the dataset in place. Needs the
+	 * columns and table from data/changeTracking.sql. Datasets that are not read
+	 * from the database are left as they are.
+	 * 
+	 * @param dataset
+	 * @return the number of invoices added, changed or removed
+	 */
+	public static int refreshInvoices(InvoiceDataset dataset) {
+		if (!RepositoryFactory.usesDatabase()) {
+			return 0;
+		}
+		// The primary is used so replication lag can not hide a change from the refresh.
 		Connection conn = ConnectionFactory.getConnection();
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 
-		// A query to get all the columns from the invoice table.
-		String query = "SELECT invoiceKey, invoiceUuid, customerKey, personKey FROM Invoice";
-
 		try {
-			ps = conn.prepareStatement(query);
+			// Everything is read in one transaction so it all comes from the same snapshot.
+			conn.setAutoCommit(false);
+			ps = conn.prepareStatement("SELECT CURRENT_TIMESTAMP(3)");
+			rs = ps.executeQuery();
+			rs.next();
+			Timestamp now = rs.getTimestamp(1);
+			ConnectionFactory.closeConnection(ps, rs);
+
+			Timestamp last = dataset.getRefreshedAt();
+			if (last == null) {
+				// The full load is read on this connection too, not through the repository, which would
+				// read the replica outside this snapshot and could miss changes made before now.
+				InvoiceGraphLoader loader = new InvoiceGraphLoader();
+				loader.loadReferenceData(conn);
+				List<Invoice> invoices = loader.loadInvoices(conn);
+				conn.commit();
+				int loaded = dataset.reload(invoices);
+				dataset.setRefreshedAt(now);
+				return loaded;
+			}
+			Timestamp since = new Timestamp(last.getTime() - DatabaseInfo.refreshOverlapMillis);
+
+			List<String> removedUuids = new ArrayList<String>();
+			ps = conn.prepareStatement("SELECT invoiceUuid FROM InvoiceTombstone WHERE deletedAt >= ?");
+			ps.setTimestamp(1, since);
 			rs = ps.executeQuery();
-			// While there are still invoices in the database continue getting the database.
 			while (rs.next()) {
-				int invoiceKey = rs.getInt("invoiceKey");
-				String invoiceUuid = rs.getString("invoiceUuid");
-				int customerKey = rs.getInt("customerKey");
-				// get the customer that relates to this particular invoice.
-				Customer customer = Customer.getCustomerByKey(customerKey);
-				int salesPersonKey = rs.getInt("personKey");
-				// get the salesPerson that relates to this particular invoice.
-				Person salesPerson = Person.getPersonByKey(salesPersonKey);
-				// get the product list of the products that correspond to this particular
-				// invoice
-				List<Product> productList = getProductList(invoiceKey);
-				Invoice invoice = new Invoice(invoiceUuid, customer, salesPerson, productList);
-				invoiceMap.put(invoiceUuid, invoice);
+				removedUuids.add(rs.getString("invoiceUuid"));
 			}
+			ConnectionFactory.closeConnection(ps, rs);
+
+			// Only read the reference tables when some invoice actually changed.
+			List<Invoice> changed = Collections.emptyList();
+			ps = conn.prepareStatement("SELECT COUNT(*) FROM Invoice WHERE lastModified >= ?");
+			ps.setTimestamp(1, since);
+			rs = ps.executeQuery();
+			rs.next();
+			if (rs.getInt(1) > 0) {
+				InvoiceGraphLoader loader = new InvoiceGraphLoader();
+				loader.loadReferenceData(conn);
+				changed = loader.loadChangedInvoices(conn, since);
+			}
+			conn.commit();
+			int patched = dataset.patch(removedUuids, changed);
+			dataset.setRefreshedAt(now);
+			return patched;
 		} catch (SQLException e) {
 			System.out.println("SQLException: ");
 			e.printStackTrace();
 			throw new RuntimeException(e);
 		} finally {
-			// close the opened connections
+			// Closing the connection rolls back and resets it if the refresh failed.
 			ConnectionFactory.closeConnection(conn, ps, rs);
 		}
-		return invoiceMap;
 	}
 
 //-----------------------------------------------------------------------------------------------------------
 
-	// This method query's the database for all invoice data and prints the summary of the invoices
-	public static void getInvoiceDataList(int listSort) {
-		LinkedList<Invoice> invoiceList = new LinkedList<Invoice>();
-		Connection conn = ConnectionFactory.getConnection();
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
-		// A query to get all the columns from the invoice table.
-		String query = "SELECT invoiceKey, invoiceUuid, customerKey, personKey FROM Invoice";
-
+	// This method returns the invoices as a lazy stream read through a MySQL streaming result set,
+	// so only the reference tables and the invoice being read are held in memory. The stream
+	// should be closed (or read to the end) to give its connection back.
+	public static Stream<Invoice> streamInvoices() {
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
+		Connection conn = ConnectionFactory.getReadConnection();
+		InvoiceCursor cursor = null;
 		try {
-			ps = conn.prepareStatement(query);
-			rs = ps.executeQuery();
-			// While there are still invoices in the database continue getting the database.
-			while (rs.next()) {
-				int invoiceKey = rs.getInt("invoiceKey");
-				String invoiceUuid = rs.getString("invoiceUuid");
-				int customerKey = rs.getInt("customerKey");
-
-				// get the customer that relates to this particular invoice.
-				Customer customer = Customer.getCustomerByKey(customerKey);
-				int salesPersonKey = rs.getInt("personKey");
-
-				// get the salesPerson that relates to this particular invoice.
-				Person salesPerson = Person.getPersonByKey(salesPersonKey);
-
-				// get the product list of the products that correspond to this particular invoice
-				List<Product> productList = getProductList(invoiceKey);
-				Invoice invoice = new Invoice(invoiceUuid, customer, salesPerson, productList);
-
-				// depending on the given type or sort we call that sorting method.
-				Comparator<Invoice> comparator = null;
-				if (listSort == 1) {
-					comparator = new CustomerComparator<Invoice>();
-					invoiceList.insertSorted(invoice, comparator);
-				} else if (listSort == 2) {
-					comparator = new TotalComparator<Invoice>();
-					invoiceList.insertSorted(invoice, comparator);
-				} else {
-					comparator = new TypeThenNameComparator<Invoice>();
-					invoiceList.insertSorted(invoice, comparator);
-				}
-			}
+			// The reference data has to be read before the connection starts streaming, in the same
+			// snapshot as the invoices so every invoice finds its customer, person and products.
+			InvoiceGraphLoader.beginSnapshot(conn);
+			loader.loadReferenceData(conn);
+			cursor = loader.openCursor(conn, true);
 		} catch (SQLException e) {
+			ConnectionFactory.closeConnection(conn, null, null);
 			System.out.println("SQLException: ");
 			e.printStackTrace();
 			throw new RuntimeException(e);
-		} finally {
-			// close the opened connections
-			ConnectionFactory.closeConnection(conn, ps, rs);
+		} catch (RuntimeException e) {
+			ConnectionFactory.closeConnection(conn, null, null);
+			throw e;
+		}
+		Spliterator<Invoice> spliterator = Spliterators.spliteratorUnknownSize(cursor,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(cursor::close);
+	}
+
+//-----------------------------------------------------------------------------------------------------------
+
+	// This method prints the detailed report while streaming the invoices from the database.
+	public static void printDetailedReport() {
+		try (Stream<Invoice> invoices = streamInvoices()) {
+			Report.printDetailedReport(invoices.iterator());
 		}
-		//When done creating the linked list print the report.
-		Report.printSummaryReport(invoiceList);
 	}
 
 }
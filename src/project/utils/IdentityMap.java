@@ -0,0 +1,99 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class is a per-thread identity map for the rows built by the static lookups
+ */
+package project.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import project.lib.Address;
+import project.lib.Country;
+import project.lib.Person;
+import project.lib.State;
+
+/**
+ * While a unit of work is open on a thread, Person.getPersonByKey,
+ * Address.getAddressByKey, State.getStateByKey and Country.getCountryByKey on
+ * that thread check this map before going to the database, so each row is only
+ * built once per unit of work. Other threads, and code outside of a unit of
+ * work, do the lookups exactly as before. It only helps code that makes many of
+ * these per-key lookups, the InvoiceGraphLoader already builds each row once.
+ */
+public class IdentityMap {
+
+	// The unit of work open on each thread, so units of work on different threads never meet.
+	private static final ThreadLocal<IdentityMap> current = new ThreadLocal<IdentityMap>();
+
+	private final Map<Integer, Person> persons = new ConcurrentHashMap<Integer, Person>();
+	private final Map<Integer, Address> addresses = new ConcurrentHashMap<Integer, Address>();
+	private final Map<Integer, State> states = new ConcurrentHashMap<Integer, State>();
+	private final Map<Integer, Country> countries = new ConcurrentHashMap<Integer, Country>();
+
+	// This method opens a new unit of work on the calling thread, which must not have one open.
+	public static IdentityMap begin() {
+		if (current.get() != null) {
+			throw new IllegalStateException("A unit of work is already open on this thread");
+		}
+		IdentityMap identityMap = new IdentityMap();
+		current.set(identityMap);
+		return identityMap;
+	}
+
+	// This method closes the calling thread's unit of work and releases everything it holds.
+	public static void end() {
+		current.remove();
+	}
+
+	// Returns the unit of work open on the calling thread, or null if there is none.
+	public static IdentityMap current() {
+		return current.get();
+	}
+
+//-------------------------------------------------------------------------------------------
+
+	public Person getPerson(int personKey) {
+		return persons.get(personKey);
+	}
+
+	// Stores the person unless another thread got there first, and returns the one that is kept.
+	public Person putPerson(int personKey, Person person) {
+		Person existing = persons.putIfAbsent(personKey, person);
+		return existing == null ? person : existing;
+	}
+
+	public Address getAddress(int addressKey) {
+		return addresses.get(addressKey);
+	}
+
+	public Address putAddress(int addressKey, Address address) {
+		Address existing = addresses.putIfAbsent(addressKey, address);
+		return existing == null ? address : existing;
+	}
+
+	public State getState(int stateKey) {
+		return states.get(stateKey);
+	}
+
+	public State putState(int stateKey, State state) {
+		State existing = states.putIfAbsent(stateKey, state);
+		return existing == null ? state : existing;
+	}
+
+	public Country getCountry(int countryKey) {
+		return countries.get(countryKey);
+	}
+
+	public Country putCountry(int countryKey, Country country) {
+		Country existing = countries.putIfAbsent(countryKey, country);
+		return existing == null ? country : existing;
+	}
+
+	// Returns the number of objects held by this unit of work.
+	public int size() {
+		return persons.size() + addresses.size() + states.size() + countries.size();
+	}
+
+}
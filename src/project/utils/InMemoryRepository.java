@@ -0,0 +1,378 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class is a repository that holds everything in memory
+ */
+package project.utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import project.lib.Address;
+import project.lib.Consultation;
+import project.lib.CorporateCustomer;
+import project.lib.Country;
+import project.lib.Customer;
+import project.lib.Email;
+import project.lib.Equipment;
+import project.lib.GovernmentCustomer;
+import project.lib.Invoice;
+import project.lib.License;
+import project.lib.Person;
+import project.lib.Product;
+import project.lib.State;
+
+/**
+ * Keeps every table in a concurrent map ordered by key, so reports and
+ * benchmarks can run without a database. The add methods hand out keys the
+ * way the database's auto increment columns would, starting at 1, and can be
+ * called from several threads at once. It can be filled from the .dat files
+ * with {@link #loadDataFiles(String)}.
+ */
+public class InMemoryRepository implements Repository {
+
+	private final Map<Integer, Country> countries = new ConcurrentSkipListMap<Integer, Country>();
+	private final Map<Integer, State> states = new ConcurrentSkipListMap<Integer, State>();
+	private final Map<Integer, Address> addresses = new ConcurrentSkipListMap<Integer, Address>();
+	private final Map<Integer, Person> persons = new ConcurrentSkipListMap<Integer, Person>();
+	private final Map<Integer, Email> emails = new ConcurrentSkipListMap<Integer, Email>();
+	private final Map<Integer, List<String>> personEmails = new ConcurrentSkipListMap<Integer, List<String>>();
+	private final Map<Integer, Customer> customers = new ConcurrentSkipListMap<Integer, Customer>();
+	private final Map<Integer, Product> products = new ConcurrentSkipListMap<Integer, Product>();
+	private final Map<Integer, Invoice> invoices = new ConcurrentSkipListMap<Integer, Invoice>();
+
+	private final AtomicInteger nextCountryKey = new AtomicInteger(1);
+	private final AtomicInteger nextStateKey = new AtomicInteger(1);
+	private final AtomicInteger nextAddressKey = new AtomicInteger(1);
+	private final AtomicInteger nextPersonKey = new AtomicInteger(1);
+	private final AtomicInteger nextEmailKey = new AtomicInteger(1);
+	private final AtomicInteger nextCustomerKey = new AtomicInteger(1);
+	private final AtomicInteger nextProductKey = new AtomicInteger(1);
+	private final AtomicInteger nextInvoiceKey = new AtomicInteger(1);
+
+//---------------------------------------------------------------------------------------------
+
+	// Each add method stores the object and returns the key it was given.
+
+	public int addCountry(String countryName) {
+		int countryKey = nextCountryKey.getAndIncrement();
+		countries.put(countryKey, new Country(countryKey, countryName));
+		return countryKey;
+	}
+
+	public int addState(String stateName, int countryKey) {
+		int stateKey = nextStateKey.getAndIncrement();
+		states.put(stateKey, new State(stateKey, stateName, getCountryByKey(countryKey)));
+		return stateKey;
+	}
+
+	public int addAddress(String street, String city, int stateKey, String zip) {
+		int addressKey = nextAddressKey.getAndIncrement();
+		State state = getStateByKey(stateKey);
+		addresses.put(addressKey, new Address(addressKey, street, city, state, zip, state.getCountry()));
+		return addressKey;
+	}
+
+	public int addPerson(Person person) {
+		int personKey = nextPersonKey.getAndIncrement();
+		persons.put(personKey, person);
+		personEmails.put(personKey, new CopyOnWriteArrayList<String>());
+		for (String email : person.getEmails()) {
+			addEmail(personKey, email);
+		}
+		return personKey;
+	}
+
+	// This method adds the email to the person's email list, the person keeps its own copy.
+	public int addEmail(int personKey, String email) {
+		List<String> list = personEmails.get(personKey);
+		if (list == null) {
+			throw new IllegalStateException("No such Person in database with id = " + personKey);
+		}
+		int emailKey = nextEmailKey.getAndIncrement();
+		emails.put(emailKey, new Email(emailKey, email));
+		list.add(email);
+		return emailKey;
+	}
+
+	public int addCustomer(Customer customer) {
+		int customerKey = nextCustomerKey.getAndIncrement();
+		customers.put(customerKey, customer);
+		return customerKey;
+	}
+
+	public int addProduct(Product product) {
+		int productKey = nextProductKey.getAndIncrement();
+		products.put(productKey, product);
+		return productKey;
+	}
+
+	public int addInvoice(Invoice invoice) {
+		int invoiceKey = nextInvoiceKey.getAndIncrement();
+		invoices.put(invoiceKey, invoice);
+		return invoiceKey;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	@Override
+	public Invoice getInvoiceByKey(int invoiceKey) {
+		return require(invoices, invoiceKey, "invoice");
+	}
+
+	@Override
+	public List<Invoice> getAllInvoices() {
+		return new ArrayList<Invoice>(invoices.values());
+	}
+
+	@Override
+	public Customer getCustomerByKey(int customerKey) {
+		return require(customers, customerKey, "customer");
+	}
+
+	@Override
+	public List<Customer> getAllCustomers() {
+		return new ArrayList<Customer>(customers.values());
+	}
+
+	@Override
+	public Person getPersonByKey(int personKey) {
+		return require(persons, personKey, "Person");
+	}
+
+	@Override
+	public List<Person> getAllPersons() {
+		return new ArrayList<Person>(persons.values());
+	}
+
+	@Override
+	public Product getProductByKey(int productKey) {
+		return require(products, productKey, "product");
+	}
+
+	@Override
+	public List<Product> getAllProducts() {
+		return new ArrayList<Product>(products.values());
+	}
+
+	@Override
+	public Address getAddressByKey(int addressKey) {
+		return require(addresses, addressKey, "address");
+	}
+
+	@Override
+	public State getStateByKey(int stateKey) {
+		return require(states, stateKey, "state");
+	}
+
+	@Override
+	public Country getCountryByKey(int countryKey) {
+		return require(countries, countryKey, "country");
+	}
+
+	@Override
+	public Email getEmailByKey(int emailKey) {
+		return emails.get(emailKey);
+	}
+
+	@Override
+	public List<String> getPersonEmailList(int personKey) {
+		List<String> list = personEmails.get(personKey);
+		return list == null ? new ArrayList<String>() : new ArrayList<String>(list);
+	}
+
+	private static <T> T require(Map<Integer, T> table, int key, String name) {
+		T value = table.get(key);
+		if (value == null) {
+			throw new IllegalStateException("No such " + name + " in database with id = " + key);
+		}
+		return value;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads Persons.dat, Customers.dat, Products.dat and Invoices.dat from the
+	 * given directory into this repository. Every file starts with its number of
+	 * records, followed by one semicolon separated record per line.
+	 *
+	 * @param directory
+	 * @return this repository
+	 */
+	public InMemoryRepository loadDataFiles(String directory) {
+		DataFileLoader loader = new DataFileLoader();
+		loader.loadPersons(new File(directory, "Persons.dat"));
+		loader.loadCustomers(new File(directory, "Customers.dat"));
+		loader.loadProducts(new File(directory, "Products.dat"));
+		loader.loadInvoices(new File(directory, "Invoices.dat"));
+		return this;
+	}
+
+	// Remembers what has been read so far so later files can refer to it by uuid.
+	private class DataFileLoader {
+
+		private final Map<String, Integer> countryKeys = new HashMap<String, Integer>();
+		private final Map<String, Integer> stateKeys = new HashMap<String, Integer>();
+		private final Map<String, Person> personsByUuid = new HashMap<String, Person>();
+		private final Map<String, Customer> customersByUuid = new HashMap<String, Customer>();
+		private final Map<String, Product> productsByUuid = new HashMap<String, Product>();
+
+		// uuid;lastName,firstName;street,city,state,zip,country;email,email,...
+		private void loadPersons(File file) {
+			for (String[] tokens : readRecords(file)) {
+				String[] name = tokens[1].split(",");
+				Address address = getAddress(tokens[2]);
+				Person person = new Person(tokens[0].trim(), name[0].trim(), name[1].trim(), address);
+				if (tokens.length > 3) {
+					for (String email : tokens[3].split(",")) {
+						if (!email.trim().isEmpty()) {
+							person.addEmail(email.trim());
+						}
+					}
+				}
+				addPerson(person);
+				personsByUuid.put(person.getPersonUuid(), person);
+			}
+		}
+
+		// uuid;G or C;primaryContactUuid;name;street,city,state,zip,country
+		private void loadCustomers(File file) {
+			for (String[] tokens : readRecords(file)) {
+				String customerUuid = tokens[0].trim();
+				Person primaryContact = getPerson(tokens[2].trim());
+				Address address = getAddress(tokens[4]);
+				Customer customer;
+				if (tokens[1].trim().equals("G")) {
+					customer = new GovernmentCustomer(customerUuid, primaryContact, tokens[3].trim(), address);
+				} else {
+					customer = new CorporateCustomer(customerUuid, primaryContact, tokens[3].trim(), address);
+				}
+				addCustomer(customer);
+				customersByUuid.put(customerUuid, customer);
+			}
+		}
+
+		// uuid;E;name;pricePerUnit or uuid;L;name;annualLicenseFee;serviceFee
+		// or uuid;C;name;consultantUuid;hourlyFee
+		private void loadProducts(File file) {
+			for (String[] tokens : readRecords(file)) {
+				String productUuid = tokens[0].trim();
+				String productType = tokens[1].trim();
+				String productName = tokens[2].trim();
+				Product product;
+				if (productType.equals("E")) {
+					product = new Equipment(productUuid, productName, Double.parseDouble(tokens[3].trim()));
+				} else if (productType.equals("C")) {
+					product = new Consultation(productUuid, productName, getPerson(tokens[3].trim()),
+							Double.parseDouble(tokens[4].trim()));
+				} else {
+					double annualLicenseFee = Double.parseDouble(tokens[3].trim());
+					double serviceFee = Double.parseDouble(tokens[4].trim());
+					product = new License(productUuid, productName, annualLicenseFee, serviceFee);
+				}
+				addProduct(product);
+				productsByUuid.put(productUuid, product);
+			}
+		}
+
+		// uuid;customerUuid;salesPersonUuid;productUuid:units or hours,productUuid:beginDate:endDate,...
+		private void loadInvoices(File file) {
+			for (String[] tokens : readRecords(file)) {
+				List<Product> productList = new ArrayList<Product>();
+				if (tokens.length > 3) {
+					for (String item : tokens[3].split(",")) {
+						if (!item.trim().isEmpty()) {
+							productList.add(createLineItem(item.trim().split(":")));
+						}
+					}
+				}
+				addInvoice(new Invoice(tokens[0].trim(), getCustomer(tokens[1].trim()), getPerson(tokens[2].trim()),
+						productList));
+			}
+		}
+
+		// This method builds the line item the same way InvoiceGraphLoader.createLineItem does.
+		private Product createLineItem(String[] item) {
+			Product product = productsByUuid.get(item[0]);
+			if (product == null) {
+				throw new IllegalStateException("No such product in data files with id = " + item[0]);
+			}
+			String productType = product.getType();
+			if (productType.equals("E")) {
+				return new Equipment((Equipment) product, Integer.parseInt(item[1]));
+			} else if (productType.equals("C")) {
+				return new Consultation((Consultation) product, Integer.parseInt(item[1]));
+			} else {
+				int effectiveDays = License.getEffectiveDays(item[1], item[2]);
+				return new License((License) product, effectiveDays);
+			}
+		}
+
+		// street,city,state,zip,country where any part but the street and country may be empty.
+		private Address getAddress(String field) {
+			String[] addr = field.split(",", -1);
+			String countryName = addr[4].trim();
+			Integer countryKey = countryKeys.get(countryName);
+			if (countryKey == null) {
+				countryKey = addCountry(countryName);
+				countryKeys.put(countryName, countryKey);
+			}
+			String stateName = addr[2].trim();
+			Integer stateKey = stateKeys.get(countryName + "," + stateName);
+			if (stateKey == null) {
+				stateKey = addState(stateName, countryKey);
+				stateKeys.put(countryName + "," + stateName, stateKey);
+			}
+			return getAddressByKey(addAddress(addr[0].trim(), addr[1].trim(), stateKey, addr[3].trim()));
+		}
+
+		private Person getPerson(String personUuid) {
+			Person person = personsByUuid.get(personUuid);
+			if (person == null) {
+				throw new IllegalStateException("No such Person in data files with id = " + personUuid);
+			}
+			return person;
+		}
+
+		private Customer getCustomer(String customerUuid) {
+			Customer customer = customersByUuid.get(customerUuid);
+			if (customer == null) {
+				throw new IllegalStateException("No such customer in data files with id = " + customerUuid);
+			}
+			return customer;
+		}
+
+		// This method reads the record count on the first line and then that many non-blank records.
+		private List<String[]> readRecords(File file) {
+			List<String[]> records = new ArrayList<String[]>();
+			Scanner scanner = null;
+			try {
+				scanner = new Scanner(file);
+			} catch (FileNotFoundException e) {
+				throw new RuntimeException(e);
+			}
+			try {
+				int count = Integer.parseInt(scanner.nextLine().trim());
+				while (records.size() < count && scanner.hasNextLine()) {
+					String line = scanner.nextLine();
+					if (!line.trim().isEmpty()) {
+						records.add(line.split(";"));
+					}
+				}
+			} finally {
+				scanner.close();
+			}
+			return records;
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class walks the invoice result set one invoice at a time
+ */
+package project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import project.lib.Invoice;
+
+/**
+ * Turns the rows of the invoice/line item query into Invoice objects as they are
+ * read. The rows of one invoice are adjacent, so only the invoice being built is
+ * held in memory. In streaming mode the result set is a forward-only, read-only
+ * MySQL streaming result set which keeps the driver from buffering the whole
+ * table. Nothing else can use the connection while it streams, so a streaming
+ * cursor owns its connection and closes it once the last invoice has been read
+ * or the cursor is closed.
+ */
+public class InvoiceCursor implements Iterator<Invoice>, AutoCloseable {
+
+	private final InvoiceGraphLoader loader;
+	private final Connection conn;
+	private final boolean streaming;
+	private PreparedStatement ps = null;
+	private ResultSet rs = null;
+	// True when the result set is on a row that has not been turned into an invoice yet.
+	private boolean hasRow = false;
+	private boolean closed = false;
+
+	// Constructor, runs the query with the given parameters. The loader must already have its reference data.
+	InvoiceCursor(InvoiceGraphLoader loader, Connection conn, String query, boolean streaming, Object... params) {
+		this.loader = loader;
+		this.conn = conn;
+		this.streaming = streaming;
+		try {
+			if (streaming) {
+				ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				// Integer.MIN_VALUE tells Connector/J to stream rows one at a time.
+				ps.setFetchSize(Integer.MIN_VALUE);
+			} else {
+				ps = conn.prepareStatement(query);
+			}
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			rs = ps.executeQuery();
+			hasRow = rs.next();
+		} catch (SQLException e) {
+			close();
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		}
+		if (!hasRow) {
+			close();
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	@Override
+	public boolean hasNext() {
+		return hasRow;
+	}
+
+	// This method reads every row of the next invoice and returns it with its line items.
+	@Override
+	public Invoice next() {
+		if (!hasRow) {
+			throw new NoSuchElementException("There are no more invoices");
+		}
+		try {
+			int invoiceKey = rs.getInt("invoiceKey");
+			Invoice invoice = loader.createInvoice(rs);
+			do {
+				loader.addLineItem(invoice, rs);
+				hasRow = rs.next();
+			} while (hasRow && rs.getInt("invoiceKey") == invoiceKey);
+			if (!hasRow) {
+				close();
+			}
+			return invoice;
+		} catch (SQLException e) {
+			close();
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method releases the result set, and the connection if this is a streaming cursor.
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		hasRow = false;
+		if (streaming) {
+			ConnectionFactory.closeConnection(conn, ps, rs);
+		} else {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class holds one load of the invoices so several reports can share it
+ */
+package project.utils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import project.lib.Invoice;
+
+/**
+ * The invoices, with their customers, salespersons and products, loaded once
+ * from the current repository the first time they are asked for. Every report
+ * built from the same dataset sees the same objects. Call {@link #invalidate()}
+ * after the data has changed and the next call loads it again, or keep it up to
+ * date with {@link DatabaseReader#refreshInvoices(InvoiceDataset)}.
+ */
+public class InvoiceDataset {
+
+	// Keyed by invoiceUuid in load order, so a refresh can replace or drop single invoices.
+	private Map<String, Invoice> invoices = null;
+	private List<Invoice> snapshot = null;
+	private long loadedAt = 0;
+	// Database time the last refresh looked for changes from, null until the first refresh.
+	private Timestamp refreshedAt = null;
+
+	// Returns the invoices, loading them if this dataset is empty. The list can not be changed.
+	public synchronized List<Invoice> getInvoices() {
+		if (invoices == null) {
+			invoices = new LinkedHashMap<String, Invoice>();
+			for (Invoice invoice : RepositoryFactory.getRepository().getAllInvoices()) {
+				invoices.put(invoice.getInvoiceUuid(), invoice);
+			}
+			loadedAt = System.currentTimeMillis();
+		}
+		if (snapshot == null) {
+			snapshot = Collections.unmodifiableList(new ArrayList<Invoice>(invoices.values()));
+		}
+		return snapshot;
+	}
+
+	// This method drops the loaded invoices so the next getInvoices call reads them again.
+	public synchronized void invalidate() {
+		invoices = null;
+		snapshot = null;
+		loadedAt = 0;
+		refreshedAt = null;
+	}
+
+	public synchronized boolean isLoaded() {
+		return invoices != null;
+	}
+
+	// Returns when the invoices were loaded in epoch milliseconds, or 0 if they are not loaded.
+	public synchronized long getLoadedAt() {
+		return loadedAt;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	synchronized Timestamp getRefreshedAt() {
+		return invoices == null ? null : refreshedAt;
+	}
+
+	synchronized void setRefreshedAt(Timestamp refreshedAt) {
+		this.refreshedAt = refreshedAt;
+	}
+
+	// This method replaces the invoices with the given ones, read by a full refresh. Returns how many there are.
+	synchronized int reload(List<Invoice> loaded) {
+		invoices = new LinkedHashMap<String, Invoice>();
+		for (Invoice invoice : loaded) {
+			invoices.put(invoice.getInvoiceUuid(), invoice);
+		}
+		snapshot = null;
+		loadedAt = System.currentTimeMillis();
+		return invoices.size();
+	}
+
+	// This method drops the removed invoices and puts the changed ones in place of their old
+	// versions, new invoices go at the end. Returns the number of invoices added, changed or removed.
+	synchronized int patch(Collection<String> removedUuids, List<Invoice> changed) {
+		getInvoices();
+		int patched = 0;
+		for (String invoiceUuid : removedUuids) {
+			if (invoices.remove(invoiceUuid) != null) {
+				patched++;
+			}
+		}
+		for (Invoice invoice : changed) {
+			invoices.put(invoice.getInvoiceUuid(), invoice);
+			patched++;
+		}
+		if (patched > 0) {
+			snapshot = null;
+		}
+		return patched;
+	}
+
+}
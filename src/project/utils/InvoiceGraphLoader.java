@@ -0,0 +1,514 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class loads the whole Invoice object graph from the database
+ * with a handful of joined queries instead of one query per entity.
+ */
+package project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import project.lib.Address;
+import project.lib.Consultation;
+import project.lib.CorporateCustomer;
+import project.lib.Country;
+import project.lib.Customer;
+import project.lib.Equipment;
+import project.lib.GovernmentCustomer;
+import project.lib.Invoice;
+import project.lib.License;
+import project.lib.Person;
+import project.lib.Product;
+import project.lib.State;
+
+public class InvoiceGraphLoader {
+
+	// Every row is built once and shared by all the invoices that reference it.
+	private final Map<Integer, Country> countries = new HashMap<Integer, Country>();
+	private final Map<Integer, State> states = new HashMap<Integer, State>();
+	private final Map<Integer, Address> addresses = new HashMap<Integer, Address>();
+	private final Map<Integer, Person> persons = new HashMap<Integer, Person>();
+	private final Map<Integer, Customer> customers = new HashMap<Integer, Customer>();
+	private final Map<Integer, Product> products = new HashMap<Integer, Product>();
+
+	// When set, a customer, person or product an invoice refers to but the loader does not hold
+	// is read with this connection instead of failing the load.
+	private final Connection missingRowConnection;
+
+	// Address columns shared by the person and customer queries.
+	private static final String ADDRESS_COLUMNS = "a.addressKey, a.street, a.city, a.zip, s.stateKey, s.stateName, "
+			+ "co.countryKey, co.countryName";
+
+	private static final String ADDRESS_JOINS = "JOIN Address a ON x.addressKey = a.addressKey "
+			+ "JOIN State s ON a.stateKey = s.stateKey JOIN Country co ON s.countryKey = co.countryKey";
+
+	// Invoice rows joined to their line items, ordered so each invoice's rows are adjacent.
+	static final String INVOICE_QUERY = "SELECT i.invoiceKey, i.invoiceUuid, i.customerKey, i.personKey, "
+			+ "ip.productKey, ip.numberOfUnits, ip.billableHours, ip.effectiveBeginDate, ip.effectiveEndDate "
+			+ "FROM Invoice i LEFT JOIN InvoiceProduct ip ON ip.invoiceKey = i.invoiceKey";
+
+	public InvoiceGraphLoader() {
+		this.missingRowConnection = null;
+	}
+
+	// Copies the reference data of the other loader, see copyFor.
+	private InvoiceGraphLoader(InvoiceGraphLoader other, Connection missingRowConnection) {
+		this.countries.putAll(other.countries);
+		this.states.putAll(other.states);
+		this.addresses.putAll(other.addresses);
+		this.persons.putAll(other.persons);
+		this.customers.putAll(other.customers);
+		this.products.putAll(other.products);
+		this.missingRowConnection = missingRowConnection;
+	}
+
+	// This method returns a copy of the loader's reference data for a worker that reads its
+	// invoices later, on another connection. Reference rows committed since this loader read its
+	// own are looked up on that connection as the invoices need them. The copy shares the rows
+	// already loaded, and this loader must not change while copies are made.
+	public InvoiceGraphLoader copyFor(Connection conn) {
+		return new InvoiceGraphLoader(this, conn);
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method opens one connection, loads the reference tables and then every invoice. It is
+	// all read in one snapshot, so an invoice committed part way through can not refer to a
+	// customer, person or product the reference queries did not see.
+	public static List<Invoice> loadAllInvoices() {
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
+		Connection conn = ConnectionFactory.getReadConnection();
+		try {
+			beginSnapshot(conn);
+			loader.loadReferenceData(conn);
+			List<Invoice> invoices = loader.loadInvoices(conn);
+			conn.commit();
+			return invoices;
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(conn, null, null);
+		}
+	}
+
+	// This method starts a read only REPEATABLE READ transaction on the connection whose reads all
+	// come from one snapshot, taken now. Commit it, or close the connection, to end it.
+	public static void beginSnapshot(Connection conn) throws SQLException {
+		conn.setAutoCommit(false);
+		PreparedStatement ps = null;
+		try {
+			ps = conn.prepareStatement("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+			ps.execute();
+			ps.close();
+			ps = conn.prepareStatement("START TRANSACTION READ ONLY, WITH CONSISTENT SNAPSHOT");
+			ps.execute();
+		} finally {
+			ConnectionFactory.closeConnection(ps, null);
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads every person, customer and product (with their addresses) into the loader.
+	public void loadReferenceData(Connection conn) {
+		loadEmails(conn, loadPersons(conn, ""), "");
+		loadCustomers(conn, "");
+		loadProducts(conn, "");
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads one person and their emails with the given connection only.
+	public Person loadPerson(Connection conn, int personKey) {
+		loadEmails(conn, loadPersons(conn, " WHERE x.personKey = ?", personKey), " WHERE personKey = ?", personKey);
+		return getPerson(personKey);
+	}
+
+	// This method loads one customer and its primary contact with the given connection only.
+	public Customer loadCustomer(Connection conn, int customerKey) {
+		String contact = " IN (SELECT personKey FROM Customer WHERE customerKey = ?)";
+		loadEmails(conn, loadPersons(conn, " WHERE x.personKey" + contact, customerKey), " WHERE personKey" + contact,
+				customerKey);
+		loadCustomers(conn, " WHERE x.customerKey = ?", customerKey);
+		return getCustomer(customerKey);
+	}
+
+	// This method loads one product and its consultant with the given connection only.
+	public Product loadProduct(Connection conn, int productKey) {
+		String consultant = " IN (SELECT personKey FROM Product WHERE productKey = ?)";
+		loadEmails(conn, loadPersons(conn, " WHERE x.personKey" + consultant, productKey),
+				" WHERE personKey" + consultant, productKey);
+		loadProducts(conn, " WHERE productKey = ?", productKey);
+		return getProduct(productKey);
+	}
+
+	// This method loads the line items of one invoice, and the consultants they reference,
+	// with the given connection only.
+	public List<Product> loadLineItems(Connection conn, int invoiceKey) {
+		String consultants = " IN (SELECT p.personKey FROM Product p JOIN InvoiceProduct ip "
+				+ "ON ip.productKey = p.productKey WHERE ip.invoiceKey = ?)";
+		loadEmails(conn, loadPersons(conn, " WHERE x.personKey" + consultants, invoiceKey),
+				" WHERE personKey" + consultants, invoiceKey);
+		loadProducts(conn, " WHERE productKey IN (SELECT productKey FROM InvoiceProduct WHERE invoiceKey = ?)",
+				invoiceKey);
+
+		List<Product> lineItems = new ArrayList<Product>();
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		String query = "SELECT productKey, numberOfUnits, billableHours, effectiveBeginDate, effectiveEndDate "
+				+ "FROM InvoiceProduct WHERE invoiceKey = ?";
+
+		try {
+			ps = conn.prepareStatement(query);
+			ps.setInt(1, invoiceKey);
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				lineItems.add(createLineItem(getProduct(rs.getInt("productKey")), rs));
+			}
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+		return lineItems;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads every invoice and its line items in a single pass over one result set.
+	public List<Invoice> loadInvoices(Connection conn) {
+		List<Invoice> invoices = new ArrayList<Invoice>();
+		InvoiceCursor cursor = openCursor(conn, false);
+		try {
+			while (cursor.hasNext()) {
+				invoices.add(cursor.next());
+			}
+		} finally {
+			cursor.close();
+		}
+		return invoices;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method opens a cursor that builds the invoices one at a time as their rows are read.
+	// A streaming cursor takes over the connection and closes it when it is done.
+	public InvoiceCursor openCursor(Connection conn, boolean streaming) {
+		return new InvoiceCursor(this, conn, INVOICE_QUERY + " ORDER BY i.invoiceKey", streaming);
+	}
+
+	// This method loads the invoices whose row or line items changed at or after the given time.
+	public List<Invoice> loadChangedInvoices(Connection conn, Timestamp since) {
+		List<Invoice> invoices = new ArrayList<Invoice>();
+		InvoiceCursor cursor = new InvoiceCursor(this, conn,
+				INVOICE_QUERY + " WHERE i.lastModified >= ? ORDER BY i.invoiceKey", false, since);
+		try {
+			while (cursor.hasNext()) {
+				invoices.add(cursor.next());
+			}
+		} finally {
+			cursor.close();
+		}
+		return invoices;
+	}
+
+	// This method loads the invoices whose keys fall in the given range (both ends included).
+	public List<Invoice> loadInvoiceRange(Connection conn, int fromKey, int toKey) {
+		List<Invoice> invoices = new ArrayList<Invoice>();
+		InvoiceCursor cursor = new InvoiceCursor(this, conn,
+				INVOICE_QUERY + " WHERE i.invoiceKey BETWEEN ? AND ? ORDER BY i.invoiceKey", false, fromKey, toKey);
+		try {
+			while (cursor.hasNext()) {
+				invoices.add(cursor.next());
+			}
+		} finally {
+			cursor.close();
+		}
+		return invoices;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method builds an invoice with an empty product list from the current invoice row.
+	Invoice createInvoice(ResultSet rs) throws SQLException {
+		String invoiceUuid = rs.getString("invoiceUuid");
+		int customerKey = rs.getInt("customerKey");
+		int personKey = rs.getInt("personKey");
+		Customer customer = missingRowConnection != null && !customers.containsKey(customerKey)
+				? loadCustomer(missingRowConnection, customerKey) : getCustomer(customerKey);
+		Person salesPerson = missingRowConnection != null && !persons.containsKey(personKey)
+				? loadPerson(missingRowConnection, personKey) : getPerson(personKey);
+		return new Invoice(invoiceUuid, customer, salesPerson, new ArrayList<Product>());
+	}
+
+	// This method adds the line item on the current row to the invoice, if the row has one.
+	void addLineItem(Invoice invoice, ResultSet rs) throws SQLException {
+		int productKey = rs.getInt("productKey");
+		if (rs.wasNull()) {
+			return;
+		}
+		Product product = missingRowConnection != null && !products.containsKey(productKey)
+				? loadProduct(missingRowConnection, productKey) : getProduct(productKey);
+		invoice.addProduct(createLineItem(product, rs));
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method copies a product and applies the InvoiceProduct quantities on the current row.
+	public static Product createLineItem(Product product, ResultSet rs) throws SQLException {
+		String productType = product.getType();
+		if (productType.equals("E")) {
+			int numberOfUnits = rs.getInt("numberOfUnits");
+			return new Equipment((Equipment) product, numberOfUnits);
+		} else if (productType.equals("C")) {
+			int billableHours = rs.getInt("billableHours");
+			return new Consultation((Consultation) product, billableHours);
+		} else {
+			String beginDate = rs.getString("effectiveBeginDate");
+			String endDate = rs.getString("effectiveEndDate");
+			int effectiveDays = License.getEffectiveDays(beginDate, endDate);
+			return new License((License) product, effectiveDays);
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	public Person getPerson(int personKey) {
+		Person person = persons.get(personKey);
+		if (person == null) {
+			throw new IllegalStateException("No such Person in database with id = " + personKey);
+		}
+		return person;
+	}
+
+	public Customer getCustomer(int customerKey) {
+		Customer customer = customers.get(customerKey);
+		if (customer == null) {
+			throw new IllegalStateException("No such customer in database with id = " + customerKey);
+		}
+		return customer;
+	}
+
+	public Product getProduct(int productKey) {
+		Product product = products.get(productKey);
+		if (product == null) {
+			throw new IllegalStateException("No such product in database with id = " + productKey);
+		}
+		return product;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads the persons matching the filter joined to their address, state and country,
+	// and returns the ones that were not loaded yet. Persons already loaded are kept as they are.
+	private Map<Integer, Person> loadPersons(Connection conn, String filter, Object... params) {
+		Map<Integer, Person> added = new HashMap<Integer, Person>();
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		String query = "SELECT x.personKey, x.personUuid, x.lastName, x.firstName, " + ADDRESS_COLUMNS
+				+ " FROM Person x " + ADDRESS_JOINS + filter;
+
+		try {
+			ps = conn.prepareStatement(query);
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				int personKey = rs.getInt("personKey");
+				if (persons.containsKey(personKey)) {
+					continue;
+				}
+				String personUuid = rs.getString("personUuid");
+				String lastName = rs.getString("lastName");
+				String firstName = rs.getString("firstName");
+				Address address = readAddress(rs);
+				Person person = new Person(personUuid, lastName, firstName, address);
+				persons.put(personKey, person);
+				added.put(personKey, person);
+			}
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+		return added;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method attaches the emails matching the filter to the given persons, the ones other
+	// persons already have are skipped.
+	private void loadEmails(Connection conn, Map<Integer, Person> added, String filter, Object... params) {
+		if (added.isEmpty()) {
+			return;
+		}
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		String query = "SELECT personKey, email FROM Email" + filter;
+
+		try {
+			ps = conn.prepareStatement(query);
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				Person person = added.get(rs.getInt("personKey"));
+				if (person != null) {
+					person.addEmail(rs.getString("email"));
+				}
+			}
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads the customers matching the filter joined to their address, state and country.
+	private void loadCustomers(Connection conn, String filter, Object... params) {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		String query = "SELECT x.customerKey, x.customerUuid, x.customerType, x.customerName, x.personKey, "
+				+ ADDRESS_COLUMNS + " FROM Customer x " + ADDRESS_JOINS + filter;
+
+		try {
+			ps = conn.prepareStatement(query);
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				int customerKey = rs.getInt("customerKey");
+				if (customers.containsKey(customerKey)) {
+					continue;
+				}
+				String customerUuid = rs.getString("customerUuid");
+				String customerType = rs.getString("customerType");
+				String customerName = rs.getString("customerName");
+				Person primaryContact = getPerson(rs.getInt("personKey"));
+				Address address = readAddress(rs);
+				Customer customer = null;
+
+				// Determines the type of customer to put the data into
+				if (customerType.equals("G")) {
+					customer = new GovernmentCustomer(customerUuid, primaryContact, customerName, address);
+				} else {
+					customer = new CorporateCustomer(customerUuid, primaryContact, customerName, address);
+				}
+				customers.put(customerKey, customer);
+			}
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads the products matching the filter, resolving consultants from the loaded persons.
+	private void loadProducts(Connection conn, String filter, Object... params) {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		String query = "SELECT productKey, productUuid, productType, productName, personKey, hourlyFee, "
+				+ "annualLicenseFee, serviceFee, pricePerUnit FROM Product" + filter;
+
+		try {
+			ps = conn.prepareStatement(query);
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				int productKey = rs.getInt("productKey");
+				if (products.containsKey(productKey)) {
+					continue;
+				}
+				String productUuid = rs.getString("productUuid");
+				String productType = rs.getString("productType");
+				String productName = rs.getString("productName");
+				Product product = null;
+
+				// Determines the type of product.
+				if (productType.equals("E")) {
+					double pricePerUnit = rs.getDouble("pricePerUnit");
+					product = new Equipment(productUuid, productName, pricePerUnit);
+				} else if (productType.equals("C")) {
+					Person consultantPerson = getPerson(rs.getInt("personKey"));
+					double hourlyFee = rs.getDouble("hourlyFee");
+					product = new Consultation(productUuid, productName, consultantPerson, hourlyFee);
+				} else {
+					double annualLicenseFee = rs.getDouble("annualLicenseFee");
+					double serviceFee = rs.getDouble("serviceFee");
+					product = new License(productUuid, productName, annualLicenseFee, serviceFee);
+				}
+				products.put(productKey, product);
+			}
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method reads the joined address columns on the current row, reusing already built rows.
+	private Address readAddress(ResultSet rs) throws SQLException {
+		int addressKey = rs.getInt("addressKey");
+		Address address = addresses.get(addressKey);
+		if (address != null) {
+			return address;
+		}
+
+		int countryKey = rs.getInt("countryKey");
+		Country country = countries.get(countryKey);
+		if (country == null) {
+			country = new Country(countryKey, rs.getString("countryName"));
+			countries.put(countryKey, country);
+		}
+
+		int stateKey = rs.getInt("stateKey");
+		State state = states.get(stateKey);
+		if (state == null) {
+			state = new State(stateKey, rs.getString("stateName"), country);
+			states.put(stateKey, state);
+		}
+
+		address = new Address(addressKey, rs.getString("street"), rs.getString("city"), state, rs.getString("zip"),
+				country);
+		addresses.put(addressKey, address);
+		return address;
+	}
+
+}
@@ -0,0 +1,210 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class holds invoices in memory with indexes for the report filters
+ */
+package project.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import project.lib.Invoice;
+import project.lib.Product;
+
+/**
+ * Invoices by invoiceUuid, with secondary indexes so the report filters do not
+ * have to scan every invoice:
+ * <ul>
+ * <li>hash indexes by customer UUID, salesperson UUID and product UUID</li>
+ * <li>a sorted index on {@link Invoice#getTotal()} for range queries</li>
+ * </ul>
+ * Every index is updated when an invoice is added or removed. Adding an invoice
+ * with the uuid of one already in the store replaces it. The store remembers the
+ * keys each invoice was indexed under, so removing it still works if the invoice
+ * changed in between, but an invoice that changes has to be added again for
+ * the indexes to see the change. Lookups return copies in the order the
+ * invoices were added. All methods are synchronized.
+ */
+public class InvoiceStore {
+
+	private final Map<String, Entry> invoices = new LinkedHashMap<String, Entry>();
+	private final Map<String, Set<Invoice>> byCustomer = new HashMap<String, Set<Invoice>>();
+	private final Map<String, Set<Invoice>> bySalesPerson = new HashMap<String, Set<Invoice>>();
+	private final Map<String, Set<Invoice>> byProduct = new HashMap<String, Set<Invoice>>();
+	private final NavigableMap<Double, Set<Invoice>> byTotal = new TreeMap<Double, Set<Invoice>>();
+
+	public InvoiceStore() {
+	}
+
+	// Creates a store with the given invoices, e.g. those of an InvoiceDataset.
+	public InvoiceStore(Iterable<Invoice> invoices) {
+		addAll(invoices);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds the invoice to the store and its indexes, in place of the invoice with
+	 * the same uuid if there is one.
+	 * 
+	 * @param invoice
+	 * @return the invoice that was replaced, or null
+	 */
+	public synchronized Invoice add(Invoice invoice) {
+		if (invoice == null) {
+			throw new IllegalArgumentException("The store does not allow null Invoices");
+		}
+		Invoice replaced = remove(invoice.getInvoiceUuid());
+		Entry entry = new Entry(invoice);
+		invoices.put(invoice.getInvoiceUuid(), entry);
+		index(byCustomer, entry.customerUuid, invoice);
+		index(bySalesPerson, entry.salesPersonUuid, invoice);
+		for (String productUuid : entry.productUuids) {
+			index(byProduct, productUuid, invoice);
+		}
+		index(byTotal, entry.total, invoice);
+		return replaced;
+	}
+
+	public synchronized void addAll(Iterable<Invoice> invoices) {
+		for (Invoice invoice : invoices) {
+			add(invoice);
+		}
+	}
+
+	/**
+	 * Removes the invoice with the given uuid from the store and its indexes.
+	 * 
+	 * @param invoiceUuid
+	 * @return the removed invoice, or null if there was none
+	 */
+	public synchronized Invoice remove(String invoiceUuid) {
+		Entry entry = invoices.remove(invoiceUuid);
+		if (entry == null) {
+			return null;
+		}
+		Invoice invoice = entry.invoice;
+		unindex(byCustomer, entry.customerUuid, invoice);
+		unindex(bySalesPerson, entry.salesPersonUuid, invoice);
+		for (String productUuid : entry.productUuids) {
+			unindex(byProduct, productUuid, invoice);
+		}
+		unindex(byTotal, entry.total, invoice);
+		return invoice;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Returns the invoice with the given uuid, or null.
+	public synchronized Invoice getInvoice(String invoiceUuid) {
+		Entry entry = invoices.get(invoiceUuid);
+		return entry == null ? null : entry.invoice;
+	}
+
+	public synchronized List<Invoice> getAllInvoices() {
+		List<Invoice> result = new ArrayList<Invoice>(invoices.size());
+		for (Entry entry : invoices.values()) {
+			result.add(entry.invoice);
+		}
+		return result;
+	}
+
+	public synchronized int size() {
+		return invoices.size();
+	}
+
+	// Returns the invoices of the customer with the given uuid.
+	public synchronized List<Invoice> getInvoicesByCustomer(String customerUuid) {
+		return copy(byCustomer.get(customerUuid));
+	}
+
+	// Returns the invoices sold by the salesperson with the given uuid.
+	public synchronized List<Invoice> getInvoicesBySalesPerson(String personUuid) {
+		return copy(bySalesPerson.get(personUuid));
+	}
+
+	// Returns the invoices that have the product with the given uuid on them.
+	public synchronized List<Invoice> getInvoicesByProduct(String productUuid) {
+		return copy(byProduct.get(productUuid));
+	}
+
+	/**
+	 * Returns the invoices whose total is between min and max, both included,
+	 * smallest total first. The total is the one TotalComparator sorts by.
+	 * 
+	 * @param min
+	 * @param max
+	 * @return the invoices in the range
+	 */
+	public synchronized List<Invoice> getInvoicesByTotal(double min, double max) {
+		List<Invoice> result = new ArrayList<Invoice>();
+		if (min > max) {
+			return result;
+		}
+		for (Set<Invoice> invoices : byTotal.subMap(min, true, max, true).values()) {
+			result.addAll(invoices);
+		}
+		return result;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	private static <K> void index(Map<K, Set<Invoice>> index, K key, Invoice invoice) {
+		if (key == null) {
+			return;
+		}
+		Set<Invoice> invoices = index.get(key);
+		if (invoices == null) {
+			invoices = new LinkedHashSet<Invoice>();
+			index.put(key, invoices);
+		}
+		invoices.add(invoice);
+	}
+
+	private static <K> void unindex(Map<K, Set<Invoice>> index, K key, Invoice invoice) {
+		if (key == null) {
+			return;
+		}
+		Set<Invoice> invoices = index.get(key);
+		if (invoices != null) {
+			invoices.remove(invoice);
+			if (invoices.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	private static List<Invoice> copy(Collection<Invoice> invoices) {
+		return invoices == null ? new ArrayList<Invoice>() : new ArrayList<Invoice>(invoices);
+	}
+
+	// An invoice with the keys it was indexed under.
+	private static class Entry {
+		private final Invoice invoice;
+		private final String customerUuid;
+		private final String salesPersonUuid;
+		private final Set<String> productUuids = new LinkedHashSet<String>();
+		private final Double total;
+
+		private Entry(Invoice invoice) {
+			this.invoice = invoice;
+			this.customerUuid = invoice.getCustomer() == null ? null : invoice.getCustomer().getCustomerUuid();
+			this.salesPersonUuid = invoice.getSalesPerson() == null ? null : invoice.getSalesPerson().getPersonUuid();
+			for (Product product : invoice.getProductList()) {
+				productUuids.add(product.getProductUuid());
+			}
+			// 0.0 and -0.0 are the same total.
+			this.total = invoice.getTotal() + 0.0;
+		}
+	}
+
+}
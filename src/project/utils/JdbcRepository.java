@@ -0,0 +1,92 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class is the repository that reads everything from the database
+ */
+package project.utils;
+
+import java.util.List;
+
+import project.lib.Address;
+import project.lib.Country;
+import project.lib.Customer;
+import project.lib.Email;
+import project.lib.Invoice;
+import project.lib.Person;
+import project.lib.Product;
+import project.lib.State;
+
+/**
+ * Reads through the queryXByKey methods of the domain classes, so the identity
+ * map, the reference data registry and the read replica routing all still apply.
+ */
+public class JdbcRepository implements Repository {
+
+	@Override
+	public Invoice getInvoiceByKey(int invoiceKey) {
+		return Invoice.queryInvoiceByKey(invoiceKey);
+	}
+
+	// The whole invoice graph is loaded with the partitioned loader instead of one query per invoice.
+	@Override
+	public List<Invoice> getAllInvoices() {
+		return PartitionedInvoiceLoader.loadAllInvoices();
+	}
+
+	@Override
+	public Customer getCustomerByKey(int customerKey) {
+		return Customer.queryCustomerByKey(customerKey);
+	}
+
+	@Override
+	public List<Customer> getAllCustomers() {
+		return Customer.queryAllCustomers();
+	}
+
+	@Override
+	public Person getPersonByKey(int personKey) {
+		return Person.queryPersonByKey(personKey);
+	}
+
+	@Override
+	public List<Person> getAllPersons() {
+		return Person.queryAllPersons();
+	}
+
+	@Override
+	public Product getProductByKey(int productKey) {
+		return Product.queryProductByKey(productKey);
+	}
+
+	@Override
+	public List<Product> getAllProducts() {
+		return Product.queryAllProducts();
+	}
+
+	@Override
+	public Address getAddressByKey(int addressKey) {
+		return Address.queryAddressByKey(addressKey);
+	}
+
+	@Override
+	public State getStateByKey(int stateKey) {
+		return State.queryStateByKey(stateKey);
+	}
+
+	@Override
+	public Country getCountryByKey(int countryKey) {
+		return Country.queryCountryByKey(countryKey);
+	}
+
+	@Override
+	public Email getEmailByKey(int emailKey) {
+		return Email.queryEmailByKey(emailKey);
+	}
+
+	@Override
+	public List<String> getPersonEmailList(int personKey) {
+		return Email.queryPersonEmailList(personKey);
+	}
+
+}
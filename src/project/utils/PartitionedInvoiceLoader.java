@@ -0,0 +1,275 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class loads the invoices in parallel by splitting the Invoice table into key ranges.
+ */
+package project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ObjIntConsumer;
+
+import project.lib.Invoice;
+import project.sort.Comparator;
+import project.sort.ConcurrentSortedInvoiceList;
+
+/**
+ * Loads the reference tables once, then splits the invoiceKey range into one
+ * partition per worker. Each worker borrows its own pooled connection and loads
+ * its range with the same joined query the sequential loader uses. The partitions
+ * are merged back in key order, so against a database nobody writes to the
+ * result is the same list {@link InvoiceGraphLoader#loadAllInvoices()} returns.
+ * 
+ * Unlike that method the load is not one snapshot, each partition reads its range
+ * when its worker gets to it. The result holds every invoice committed before the
+ * load started, and an invoice committed during it only if its partition had not
+ * been read yet. The last partition has no upper key, so new invoices are not
+ * dropped for being above the highest key seen at the start. A customer, person
+ * or product committed after the reference data was read is looked up on the
+ * partition's connection when an invoice refers to it.
+ */
+public class PartitionedInvoiceLoader {
+
+	private final int parallelism;
+	private final List<Partition> partitions = new ArrayList<Partition>();
+	private long referenceDataNanos = 0;
+
+	// The parallelism is capped at the pool size, a worker without a connection would only wait.
+	public PartitionedInvoiceLoader(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+		}
+		this.parallelism = Math.min(parallelism, DatabaseInfo.maxPoolSize);
+	}
+
+	// This method loads every invoice with the parallelism set in DatabaseInfo.
+	public static List<Invoice> loadAllInvoices() {
+		return new PartitionedInvoiceLoader(DatabaseInfo.loadParallelism).load();
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method loads the reference data and then every invoice range on its own worker.
+	public List<Invoice> load() {
+		return load(null);
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	/**
+	 * Loads every invoice like load(), but each worker inserts the invoices of its
+	 * range into one ConcurrentSortedInvoiceList as soon as the range is loaded, so
+	 * the sorting happens on the workers and no other list of the invoices is
+	 * built. Each invoice is inserted with its partition and its row in the
+	 * partition as the sequence number, so invoices that compare equal stay in
+	 * invoiceKey order whichever worker gets there first.
+	 * 
+	 * @param comparator
+	 * @return the invoices sorted by the comparator
+	 */
+	public ConcurrentSortedInvoiceList loadSorted(Comparator<Invoice> comparator) {
+		ConcurrentSortedInvoiceList sorted = new ConcurrentSortedInvoiceList(comparator);
+		load((invoices, partition) -> {
+			for (int row = 0; row < invoices.size(); row++) {
+				sorted.insertSorted(invoices.get(row), (long) partition << 32 | row);
+			}
+		});
+		return sorted;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method does the loading for load and loadSorted. If onLoaded is not null each worker
+	// hands it the invoices of its range and the partition's index instead of returning them,
+	// and the returned list is empty.
+	private List<Invoice> load(ObjIntConsumer<List<Invoice>> onLoaded) {
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
+		int[] keyRange;
+		Connection conn = ConnectionFactory.getReadConnection();
+		try {
+			long start = System.nanoTime();
+			loader.loadReferenceData(conn);
+			referenceDataNanos = System.nanoTime() - start;
+			keyRange = getKeyRange(conn);
+		} finally {
+			ConnectionFactory.closeConnection(conn, null, null);
+		}
+
+		partitions.clear();
+		if (keyRange == null) {
+			return new ArrayList<Invoice>();
+		}
+		split(keyRange[0], keyRange[1]);
+
+		// The loader is only read from here on, so the workers can copy it at the same time.
+		ExecutorService executor = Executors.newFixedThreadPool(partitions.size());
+		try {
+			List<Future<List<Invoice>>> futures = new ArrayList<Future<List<Invoice>>>();
+			for (int i = 0; i < partitions.size(); i++) {
+				Partition partition = partitions.get(i);
+				int index = i;
+				futures.add(executor.submit(() -> {
+					List<Invoice> loaded = partition.load(loader);
+					if (onLoaded != null) {
+						onLoaded.accept(loaded, index);
+						return null;
+					}
+					return loaded;
+				}));
+			}
+
+			List<Invoice> invoices = new ArrayList<Invoice>();
+			for (Future<List<Invoice>> future : futures) {
+				List<Invoice> loaded = getResult(future);
+				if (loaded != null) {
+					invoices.addAll(loaded);
+				}
+			}
+			return invoices;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method returns the lowest and highest invoiceKey, or null if there are no invoices.
+	private int[] getKeyRange(Connection conn) {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = conn.prepareStatement("SELECT MIN(invoiceKey), MAX(invoiceKey) FROM Invoice");
+			rs = ps.executeQuery();
+			rs.next();
+			int minKey = rs.getInt(1);
+			if (rs.wasNull()) {
+				return null;
+			}
+			return new int[] { minKey, rs.getInt(2) };
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+	// This method splits the key range into at most parallelism partitions of equal width. The last
+	// one takes every key above the range too.
+	private void split(int minKey, int maxKey) {
+		long span = (long) maxKey - minKey + 1;
+		int count = (int) Math.min(parallelism, span);
+		long from = minKey;
+		for (int i = 0; i < count; i++) {
+			long to = i == count - 1 ? Integer.MAX_VALUE : minKey + span * (i + 1) / count - 1;
+			partitions.add(new Partition((int) from, (int) to));
+			from = to + 1;
+		}
+	}
+
+	// This method waits for a partition and rethrows whatever it failed with.
+	private static List<Invoice> getResult(Future<List<Invoice>> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// Returns the partitions of the last load with their timings.
+	public List<Partition> getPartitions() {
+		return new ArrayList<Partition>(partitions);
+	}
+
+	public long getReferenceDataNanos() {
+		return referenceDataNanos;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Reference data loaded in %.1fms", referenceDataNanos / 1000000.0));
+		for (Partition partition : partitions) {
+			sb.append("\n").append(partition);
+		}
+		return sb.toString();
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	/**
+	 * One invoiceKey range and how long it took to load.
+	 */
+	public static class Partition {
+
+		private final int fromKey;
+		private final int toKey;
+		private volatile int invoiceCount = 0;
+		private volatile long elapsedNanos = 0;
+
+		private Partition(int fromKey, int toKey) {
+			this.fromKey = fromKey;
+			this.toKey = toKey;
+		}
+
+		// This method loads the range on a connection of its own, reading the reference rows the
+		// loader is missing on it too.
+		private List<Invoice> load(InvoiceGraphLoader loader) {
+			long start = System.nanoTime();
+			Connection conn = ConnectionFactory.getReadConnection();
+			try {
+				List<Invoice> invoices = loader.copyFor(conn).loadInvoiceRange(conn, fromKey, toKey);
+				invoiceCount = invoices.size();
+				return invoices;
+			} finally {
+				ConnectionFactory.closeConnection(conn, null, null);
+				elapsedNanos = System.nanoTime() - start;
+			}
+		}
+
+		public int getFromKey() {
+			return fromKey;
+		}
+
+		public int getToKey() {
+			return toKey;
+		}
+
+		public int getInvoiceCount() {
+			return invoiceCount;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Keys %d-%d: %d invoices in %.1fms", fromKey, toKey, invoiceCount,
+					elapsedNanos / 1000000.0);
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This object is a snapshot of the connection pool's state and running totals
+ */
+package project.utils;
+
+public class PoolStatistics {
+
+	private final int activeConnections;
+	private final int idleConnections;
+	private final int waitingThreads;
+	private final long borrowCount;
+	private final double averageWaitMillis;
+	private final double maxWaitMillis;
+	private final double averageBorrowMillis;
+	private final double maxBorrowMillis;
+	private final long timeoutCount;
+	private final long leakCount;
+	private final long createdCount;
+	private final long destroyedCount;
+	private final long statementCacheHits;
+	private final long statementCacheMisses;
+
+	public PoolStatistics(int activeConnections, int idleConnections, int waitingThreads, long borrowCount,
+			double averageWaitMillis, double maxWaitMillis, double averageBorrowMillis, double maxBorrowMillis,
+			long timeoutCount, long leakCount, long createdCount, long destroyedCount, long statementCacheHits,
+			long statementCacheMisses) {
+		this.activeConnections = activeConnections;
+		this.idleConnections = idleConnections;
+		this.waitingThreads = waitingThreads;
+		this.borrowCount = borrowCount;
+		this.averageWaitMillis = averageWaitMillis;
+		this.maxWaitMillis = maxWaitMillis;
+		this.averageBorrowMillis = averageBorrowMillis;
+		this.maxBorrowMillis = maxBorrowMillis;
+		this.timeoutCount = timeoutCount;
+		this.leakCount = leakCount;
+		this.createdCount = createdCount;
+		this.destroyedCount = destroyedCount;
+		this.statementCacheHits = statementCacheHits;
+		this.statementCacheMisses = statementCacheMisses;
+	}
+
+	public int getActiveConnections() {
+		return activeConnections;
+	}
+
+	public int getIdleConnections() {
+		return idleConnections;
+	}
+
+	// Number of threads currently waiting for a connection to be returned.
+	public int getWaitingThreads() {
+		return waitingThreads;
+	}
+
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+
+	// Time spent waiting for a free slot in the pool.
+	public double getAverageWaitMillis() {
+		return averageWaitMillis;
+	}
+
+	public double getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	// Total time of a borrow, including the wait, validation and opening new connections.
+	public double getAverageBorrowMillis() {
+		return averageBorrowMillis;
+	}
+
+	public double getMaxBorrowMillis() {
+		return maxBorrowMillis;
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	public long getLeakCount() {
+		return leakCount;
+	}
+
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	public long getDestroyedCount() {
+		return destroyedCount;
+	}
+
+	public long getStatementCacheHits() {
+		return statementCacheHits;
+	}
+
+	public long getStatementCacheMisses() {
+		return statementCacheMisses;
+	}
+
+	// Fraction of prepareStatement calls that reused a cached statement.
+	public double getStatementCacheHitRatio() {
+		long total = statementCacheHits + statementCacheMisses;
+		return total == 0 ? 0.0 : (double) statementCacheHits / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"active = %d, idle = %d, waiting = %d, borrows = %d, wait avg/max = %.3f/%.3fms, "
+						+ "borrow avg/max = %.3f/%.3fms, timeouts = %d, leaks = %d, created = %d, destroyed = %d, "
+						+ "statement cache hits/misses = %d/%d",
+				activeConnections, idleConnections, waitingThreads, borrowCount, averageWaitMillis, maxWaitMillis,
+				averageBorrowMillis, maxBorrowMillis, timeoutCount, leakCount, createdCount, destroyedCount,
+				statementCacheHits, statementCacheMisses);
+	}
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class holds every state and country in memory for the whole run.
+ */
+package project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import project.lib.Country;
+import project.lib.State;
+
+/**
+ * The State and Country tables are small and hardly change while the program
+ * runs, so they are read once at startup into arrays indexed by their keys.
+ * Once loaded, State.getStateByKey and Country.getCountryByKey answer from here
+ * without touching the database. A state or country added after the load is
+ * queried the first time it is looked up and then added here.
+ */
+public class ReferenceDataRegistry {
+
+	// Both arrays are replaced together, readers see either the old or the new tables.
+	private static volatile Tables tables = null;
+
+	private static class Tables {
+		private final State[] states;
+		private final Country[] countries;
+
+		private Tables(State[] states, Country[] countries) {
+			this.states = states;
+			this.countries = countries;
+		}
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// This method reads every country and state from the database, replacing anything loaded before.
+	public static void load() {
+		Connection conn = ConnectionFactory.getReadConnection();
+		try {
+			Country[] countries = loadCountries(conn);
+			State[] states = loadStates(conn, countries);
+			tables = new Tables(states, countries);
+		} finally {
+			ConnectionFactory.closeConnection(conn, null, null);
+		}
+	}
+
+	// This method drops the tables so the lookups go back to the database.
+	public static void clear() {
+		tables = null;
+	}
+
+	public static boolean isLoaded() {
+		return tables != null;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	// Returns the state with the given key, or null if there is no such state or nothing is loaded.
+	public static State getState(int stateKey) {
+		Tables current = tables;
+		if (current == null || stateKey < 0 || stateKey >= current.states.length) {
+			return null;
+		}
+		return current.states[stateKey];
+	}
+
+	// Returns the country with the given key, or null if there is no such country or nothing is loaded.
+	public static Country getCountry(int countryKey) {
+		Tables current = tables;
+		if (current == null || countryKey < 0 || countryKey >= current.countries.length) {
+			return null;
+		}
+		return current.countries[countryKey];
+	}
+
+	// This method adds a state read after the load and returns the one kept, which is the state
+	// already there if another thread added it first. Does nothing if nothing is loaded.
+	public static synchronized State addState(State state) {
+		Tables current = tables;
+		if (current == null) {
+			return state;
+		}
+		int stateKey = state.getStateKey();
+		if (stateKey < current.states.length && current.states[stateKey] != null) {
+			return current.states[stateKey];
+		}
+		State[] states = Arrays.copyOf(current.states, Math.max(current.states.length, stateKey + 1));
+		states[stateKey] = state;
+		tables = new Tables(states, current.countries);
+		return state;
+	}
+
+	// This method adds a country read after the load, like addState.
+	public static synchronized Country addCountry(Country country) {
+		Tables current = tables;
+		if (current == null) {
+			return country;
+		}
+		int countryKey = country.getCountryKey();
+		if (countryKey < current.countries.length && current.countries[countryKey] != null) {
+			return current.countries[countryKey];
+		}
+		Country[] countries = Arrays.copyOf(current.countries, Math.max(current.countries.length, countryKey + 1));
+		countries[countryKey] = country;
+		tables = new Tables(current.states, countries);
+		return country;
+	}
+
+//---------------------------------------------------------------------------------------------
+
+	private static Country[] loadCountries(Connection conn) {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = conn.prepareStatement("SELECT countryKey, countryName FROM Country ORDER BY countryKey DESC");
+			rs = ps.executeQuery();
+			Country[] countries = new Country[0];
+			while (rs.next()) {
+				int countryKey = rs.getInt("countryKey");
+				// The highest key comes first, so the array is sized on the first row.
+				if (countries.length == 0) {
+					countries = new Country[countryKey + 1];
+				}
+				countries[countryKey] = new Country(countryKey, rs.getString("countryName"));
+			}
+			return countries;
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+	private static State[] loadStates(Connection conn, Country[] countries) {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = conn.prepareStatement("SELECT stateKey, stateName, countryKey FROM State ORDER BY stateKey DESC");
+			rs = ps.executeQuery();
+			State[] states = new State[0];
+			while (rs.next()) {
+				int stateKey = rs.getInt("stateKey");
+				int countryKey = rs.getInt("countryKey");
+				if (states.length == 0) {
+					states = new State[stateKey + 1];
+				}
+				if (countryKey < 0 || countryKey >= countries.length || countries[countryKey] == null) {
+					throw new IllegalStateException("No such country in database with id = " + countryKey);
+				}
+				states[stateKey] = new State(stateKey, rs.getString("stateName"), countries[countryKey]);
+			}
+			return states;
+		} catch (SQLException e) {
+			System.out.println("SQLException: ");
+			e.printStackTrace();
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.closeConnection(ps, rs);
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class keeps track of whether the read replica is fit to read from
+ */
+package project.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides whether ConnectionFactory.getReadConnection can use the replica. The
+ * replica is checked at most once per interval with SHOW SLAVE STATUS, and is
+ * only used while it is reachable, replicating and no more than maxLagSeconds
+ * behind the primary. A server that is not replicating from anything (no
+ * status row) could be any amount behind, e.g. replication was never set up or
+ * was reset, or the url points at the wrong server, so it is not used. Only when
+ * assumeInSync is set is it taken to be up to date, so two standalone local
+ * databases can stand in for a primary and a replica.
+ */
+class ReplicaMonitor {
+
+	private final ConnectionPool replicaPool;
+	private final long maxLagSeconds;
+	private final long checkIntervalNanos;
+	private final boolean assumeInSync;
+
+	private volatile boolean usable = false;
+	private volatile long lagSeconds = -1;
+	private volatile long lastCheck = 0;
+	private volatile boolean checked = false;
+	private final AtomicBoolean probing = new AtomicBoolean(false);
+
+	ReplicaMonitor(ConnectionPool replicaPool, long maxLagSeconds, long checkIntervalMillis, boolean assumeInSync) {
+		this.replicaPool = replicaPool;
+		this.maxLagSeconds = maxLagSeconds;
+		this.checkIntervalNanos = checkIntervalMillis * 1000000L;
+		this.assumeInSync = assumeInSync;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Returns true if reads can go to the replica, checking it again if the last check is too old.
+	boolean isUsable() {
+		if (!checked || System.nanoTime() - lastCheck >= checkIntervalNanos) {
+			check();
+		}
+		return usable;
+	}
+
+	// Returns the replication lag seen by the last check, or -1 if it is unknown.
+	long getLagSeconds() {
+		return lagSeconds;
+	}
+
+	// This method is called when borrowing a replica connection failed, reads go to the
+	// primary until the next check.
+	void markFailed(RuntimeException e) {
+		if (usable) {
+			System.err.println("Read replica unavailable, reading from the primary: " + e.getMessage());
+		}
+		usable = false;
+		lastCheck = System.nanoTime();
+		checked = true;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method asks the replica how far behind it is. Only one thread checks at a time, the
+	// others return straight away and keep using the last answer (the primary before the first
+	// answer), so a hung replica only holds up the thread that probes it.
+	private void check() {
+		if (!probing.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			if (!checked || System.nanoTime() - lastCheck >= checkIntervalNanos) {
+				probe();
+			}
+		} finally {
+			probing.set(false);
+		}
+	}
+
+	private void probe() {
+		boolean wasUsable = usable;
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			conn = replicaPool.getConnection();
+			ps = conn.prepareStatement("SHOW SLAVE STATUS");
+			rs = ps.executeQuery();
+			if (rs.next()) {
+				// Seconds_Behind_Master is NULL while replication is stopped.
+				long lag = rs.getLong("Seconds_Behind_Master");
+				boolean stopped = rs.wasNull();
+				lagSeconds = stopped ? -1 : lag;
+				usable = !stopped && lag <= maxLagSeconds;
+			} else if (assumeInSync) {
+				lagSeconds = 0;
+				usable = true;
+			} else {
+				if (!checked) {
+					System.err.println("Read replica is not replicating from anything, reading from the primary");
+				}
+				lagSeconds = -1;
+				usable = false;
+			}
+		} catch (SQLException | RuntimeException e) {
+			lagSeconds = -1;
+			usable = false;
+		} finally {
+			lastCheck = System.nanoTime();
+			checked = true;
+			try {
+				ConnectionFactory.closeConnection(conn, ps, rs);
+			} catch (RuntimeException e) {
+				usable = false;
+			}
+		}
+		if (wasUsable && !usable) {
+			System.err.println("Read replica lag is " + lagSeconds + "s (limit " + maxLagSeconds
+					+ "s), reading from the primary");
+		}
+	}
+
+}
@@ -7,6 +7,7 @@
 
 package project.utils;
 
+import java.util.Iterator;
 import java.util.Map;
 
 import project.lib.Address;
@@ -16,20 +17,34 @@ import project.lib.Invoice;
 import project.lib.Person;
 import project.lib.Product;
 import project.lib.State;
-import project.sort.LinkedList;
+import project.sort.InvoiceSummary;
 
+/**
+ * Each report can be printed to the standard output, or to any ReportWriter by
+ * passing one in. The reports are built in the writer's buffer and the methods
+ * without a writer flush it to System.out when they are done.
+ */
 public class Report {
 
-	// this method takes an invoiceList and prints the executive summary report to
+	// The column headers never change, so they are only formatted once.
+	private static final String SUMMARY_HEADER = String.format(
+			"%-12s %-40s %-35s %-20s %-15s %-15s %-15s \n%s %13s %43s %32s %17s %15s %15s", "Invoice", "Customer",
+			"SalesPerson", "Subtotal", "Fees", "Taxes", "Total", "--------", "----------", "-------------",
+			"----------", "--------", "-------", "-------");
+	private static final String DETAIL_HEADER = String.format("%-13s %-86s %-12s %s\n%-12s %-86s %-12s %s\n",
+			"Code", "Item", "Fees", "Total", "-----", "------", "------", "-------");
+
+	// this method takes the sorted invoices and prints the executive summary report to
 	// the standard output.
-	public static void printSummaryReport(LinkedList<Invoice> invoiceList) {
-		StringBuilder sb = new StringBuilder();
-		//create the outline for the executive summary
-		System.out.println("Executive Summary Report \n=========================");
-		sb.append(String.format("%-12s %-40s %-35s %-20s %-15s %-15s %-15s \n%s %13s %43s %32s %17s %15s %15s",
-				"Invoice", "Customer", "SalesPerson", "Subtotal", "Fees", "Taxes", "Total", "--------", "----------",
-				"-------------", "----------", "--------", "-------", "-------"));
-		System.out.println(sb);
+	public static void printSummaryReport(Iterable<Invoice> invoiceList) {
+		ReportWriter out = ReportWriter.toSystemOut();
+		printSummaryReport(invoiceList, out);
+		out.flush();
+	}
+
+	// this method takes the sorted invoices and writes the executive summary report to the writer.
+	public static void printSummaryReport(Iterable<Invoice> invoiceList, ReportWriter out) {
+		printSummaryHeader(out);
 
 		double sumSubTotal = 0.00, sumFees = 0.00, sumTaxes = 0.00, sumTotal = 0.00, sumComplianceFee = 0.0;
 		
@@ -56,9 +71,49 @@ public class Report {
 			sumTotal += total;
 			total += serviceFees;
 
-			printIndiv(invoice, customer, salesPerson, subTotal, serviceFees, taxes, total);
+			printIndiv(invoice, customer, salesPerson, subTotal, serviceFees, taxes, total, out);
+		}
+		printTotals(sumSubTotal, sumFees, sumComplianceFee, sumTaxes, sumTotal, out);
+	}
+
+//----------------------------------------------------------------------------------------------------------------------------------------
+
+	// this method prints the executive summary report from summaries that were already added up by
+	// InvoiceSummary.of, in the order the iterator hands them over. The numbers are added up the same
+	// way as for the invoices, so the report is the same.
+	public static void printSummaryReport(Iterator<InvoiceSummary> summaries) {
+		ReportWriter out = ReportWriter.toSystemOut();
+		printSummaryReport(summaries, out);
+		out.flush();
+	}
+
+	// this method writes the executive summary report from the summaries to the writer.
+	public static void printSummaryReport(Iterator<InvoiceSummary> summaries, ReportWriter out) {
+		printSummaryHeader(out);
+
+		double sumSubTotal = 0.00, sumFees = 0.00, sumTaxes = 0.00, sumTotal = 0.00, sumComplianceFee = 0.0;
+
+		while (summaries.hasNext()) {
+			InvoiceSummary summary = summaries.next();
+			sumSubTotal += summary.getSubTotal();
+			sumFees += summary.getServiceFees();
+			sumTaxes += summary.getTaxes();
+			sumTotal += summary.getTotal();
+
+			printIndiv(summary.getInvoiceUuid(), summary.getCustomerName(), summary.getSalesPersonName(),
+					summary.getSubTotal(), summary.getServiceFees(), summary.getTaxes(),
+					summary.getTotal() + summary.getServiceFees(), out);
 		}
-		printTotals(sumSubTotal, sumFees, sumComplianceFee, sumTaxes, sumTotal);
+		printTotals(sumSubTotal, sumFees, sumComplianceFee, sumTaxes, sumTotal, out);
+	}
+
+//----------------------------------------------------------------------------------------------------------------------------------------
+
+	// this method prints the title and the column headers of the executive summary report.
+	private static void printSummaryHeader(ReportWriter out) {
+		//create the outline for the executive summary
+		out.append("Executive Summary Report \n=========================").newLine();
+		out.append(SUMMARY_HEADER).newLine();
 	}
 
 //----------------------------------------------------------------------------------------------------------------------------------------
@@ -66,15 +121,29 @@ public class Report {
 	// This method takes all 4 maps that are created and prints the detailed summary
 	// report of each invoice and prints it to the standard output
 	public static void printDetailedReport(Map<String, Invoice> invoiceMap) {
-		System.out.println("Individual Invoice Detail Reports \n=================================");
+		printDetailedReport(invoiceMap.values().iterator());
+	}
+
+//----------------------------------------------------------------------------------------------------------------------------------------
+
+	// This method prints the detailed summary report of each invoice as the iterator
+	// hands them over, so the invoices never have to be in memory all at once.
+	public static void printDetailedReport(Iterator<Invoice> invoices) {
+		ReportWriter out = ReportWriter.toSystemOut();
+		printDetailedReport(invoices, out);
+		out.flush();
+	}
+
+	// This method writes the detailed summary report of each invoice to the writer.
+	public static void printDetailedReport(Iterator<Invoice> invoices, ReportWriter out) {
+		out.append("Individual Invoice Detail Reports \n=================================").newLine();
 
 		// reads through each invoice instance and gets the data needed for the detailed
 		// report.
-		for (Map.Entry<String, Invoice> entry : invoiceMap.entrySet()) {
+		while (invoices.hasNext()) {
+			Invoice invoice = invoices.next();
 			double sumSubTotal = 0.00, sumFees = 0.00, sumTaxes = 0.00, sumTotal = 0.00, sumComplianceFee = 0.00;
 
-			String key = entry.getKey();
-			Invoice invoice = invoiceMap.get(key);
 			Customer customer = invoice.getCustomer();
 			Person primaryContact = customer.getPrimaryContact();
 			Address address = customer.getAddress();
@@ -83,7 +152,7 @@ public class Report {
 			Person salesPerson = invoice.getSalesPerson();
 			double subTotal = 0.00, taxes = 0.00, complianceFee = 0.00, fees = 0.00;
 
-			printDetailIndiv(invoice, salesPerson, customer, primaryContact, address, state, country);
+			printDetailIndiv(invoice, salesPerson, customer, primaryContact, address, state, country, out);
 
 			// reads through the product list for the invoice and gets the Transaction data
 			// for each invoice
@@ -93,12 +162,16 @@ public class Report {
 				taxes = Transaction.getTaxes(product, customer);
 				fees = product.getServiceFee();
 				
-				StringBuilder sb = new StringBuilder();
-				sb.append(String.format("(%d %s $%.2f%-6s)", product.getProductData(), product.getUnitsString(), product.getProductPrice(), product.getPerUnit()));
-				
 				//print out each product that is in the Invoice along with transaction data.
-				System.out.printf("%-8s %-35s %-50s $%10.2f  $%10.2f\n", product.getProductUuid(),
-						product.getProductName(), sb, product.getServiceFee(), subTotal);
+				out.padRight(product.getProductUuid(), 8).append(' ').padRight(product.getProductName(), 35)
+						.append(' ');
+				// the "(%d %s $%.2f%-6s)" part is padded to 50 chars as a whole.
+				long start = out.getPosition();
+				out.append('(').appendInt(product.getProductData()).append(' ').append(product.getUnitsString())
+						.append(" $").appendDecimal(product.getProductPrice(), 0).padRight(product.getPerUnit(), 6)
+						.append(')').padTo(start, 50);
+				out.append(" $").appendDecimal(product.getServiceFee(), 10).append("  $").appendDecimal(subTotal, 10)
+						.append('\n');
 				sumSubTotal += subTotal;
 				sumFees += fees;
 				sumTaxes += taxes;
@@ -109,13 +182,14 @@ public class Report {
 			sumTotal = sumFees + sumTaxes + sumSubTotal;
 
 			// print formatting for totals of each invoice
-			System.out.println(
-					"=======================================================================\t\t\t\t===========================");
-			System.out.printf("%-95s $%10.2f  $%10.2f\n", "SUB-TOTALS", sumFees, sumSubTotal);
-			System.out.printf("%-108s $%10.2f\n", "COMPLIANCE FEE", sumComplianceFee);
-			System.out.printf("%-108s $%10.2f\n", "TAXES", sumTaxes);
-			System.out.printf("%-108s $%10.2f\n", "TOTAL", sumTotal);
-			System.out.printf("\n\n");
+			out.append("=======================================================================\t\t\t\t===========================")
+					.newLine();
+			out.padRight("SUB-TOTALS", 95).append(" $").appendDecimal(sumFees, 10).append("  $")
+					.appendDecimal(sumSubTotal, 10).append('\n');
+			out.padRight("COMPLIANCE FEE", 108).append(" $").appendDecimal(sumComplianceFee, 10).append('\n');
+			out.padRight("TAXES", 108).append(" $").appendDecimal(sumTaxes, 10).append('\n');
+			out.padRight("TOTAL", 108).append(" $").appendDecimal(sumTotal, 10).append('\n');
+			out.append("\n\n");
 		}
 	}
 
@@ -124,17 +198,38 @@ public class Report {
 	// This method prints out the individual invoices for the summary report method.
 	public static void printIndiv(Invoice invoice, Customer customer, Person salesPerson, double subTotal,
 			double serviceFees, double taxes, double total) {
-		StringBuilder sb = new StringBuilder();
+		ReportWriter out = ReportWriter.toSystemOut();
+		printIndiv(invoice, customer, salesPerson, subTotal, serviceFees, taxes, total, out);
+		out.flush();
+	}
+
+	public static void printIndiv(Invoice invoice, Customer customer, Person salesPerson, double subTotal,
+			double serviceFees, double taxes, double total, ReportWriter out) {
+		printIndiv(invoice.getInvoiceUuid(), customer.getCustomerName(), salesPerson.getName(), subTotal,
+				serviceFees, taxes, total, out);
+	}
+
+	// This method prints out one line of the summary report from the names and the numbers.
+	public static void printIndiv(String invoiceUuid, String customerName, String salesPersonName, double subTotal,
+			double serviceFees, double taxes, double total) {
+		ReportWriter out = ReportWriter.toSystemOut();
+		printIndiv(invoiceUuid, customerName, salesPersonName, subTotal, serviceFees, taxes, total, out);
+		out.flush();
+	}
 
+	// This method writes one line of the summary report, laid out like
+	// "%-12s %-40s %-29s $%13.2f $%16.2f $%14.2f $%14.2f".
+	public static void printIndiv(String invoiceUuid, String customerName, String salesPersonName, double subTotal,
+			double serviceFees, double taxes, double total, ReportWriter out) {
 		// print formatting
 		subTotal = Math.round(subTotal * 100.00) / 100.00;
 		serviceFees = Math.round(serviceFees * 100.00) / 100.00;
 		taxes = Math.round(taxes * 100.00) / 100.00;
 		total = Math.round(total * 100.00) / 100.00;
-		sb.append(String.format("%-12s %-40s %-29s $%13.2f $%16.2f $%14.2f $%14.2f", invoice.getInvoiceUuid(),
-				customer.getCustomerName(), salesPerson.getName(), subTotal, serviceFees, taxes, total));
-
-		System.out.println(sb);
+		out.padRight(invoiceUuid, 12).append(' ').padRight(customerName, 40).append(' ')
+				.padRight(salesPersonName, 29);
+		out.append(" $").appendDecimal(subTotal, 13).append(" $").appendDecimal(serviceFees, 16).append(" $")
+				.appendDecimal(taxes, 14).append(" $").appendDecimal(total, 14).newLine();
 	}
 
 //------------------------------------------------------------------------------------------------------------------------------------
@@ -143,8 +238,14 @@ public class Report {
 	// summary report method.
 	public static void printTotals(double sumSubTotal, double sumFees, double sumComplianceFee, double sumTaxes,
 			double sumTotal) {
-		StringBuilder sb = new StringBuilder();
-		sb.append("===================================================================="
+		ReportWriter out = ReportWriter.toSystemOut();
+		printTotals(sumSubTotal, sumFees, sumComplianceFee, sumTaxes, sumTotal, out);
+		out.flush();
+	}
+
+	public static void printTotals(double sumSubTotal, double sumFees, double sumComplianceFee, double sumTaxes,
+			double sumTotal, ReportWriter out) {
+		out.append("===================================================================="
 				+ "====================================================================================\n");
 
 		sumComplianceFee = Math.round(sumComplianceFee * 100.00) / 100.00;
@@ -152,10 +253,9 @@ public class Report {
 		sumFees = Math.round(sumFees * 100.00) / 100.00;
 		sumTaxes = Math.round(sumTaxes * 100.00) / 100.00;
 		sumTotal = Math.round(sumTotal * 100.00) / 100.00;
-		sb.append(String.format("%-83s $%13.2f $%16.2f $%14.2f $%14.2f\n\n\n", "TOTALS", sumSubTotal,
-				sumFees + sumComplianceFee, sumTaxes, sumTotal + sumFees));
-
-		System.out.println(sb);
+		out.padRight("TOTALS", 83).append(" $").appendDecimal(sumSubTotal, 13).append(" $")
+				.appendDecimal(sumFees + sumComplianceFee, 16).append(" $").appendDecimal(sumTaxes, 14).append(" $")
+				.appendDecimal(sumTotal + sumFees, 14).append("\n\n\n").newLine();
 	}
 
 //--------------------------------------------------------------------------------------------------------------------------	
@@ -163,17 +263,25 @@ public class Report {
 	//This method prints out the individual data for each invoice.
 	public static void printDetailIndiv(Invoice invoice, Person salesPerson, Customer customer, Person primaryContact, Address address,
 			State state, Country country) {
-		System.out.println("Invoice " + invoice.getInvoiceUuid());
-		System.out.println("=================");
-		System.out.println("Salesperson: " + salesPerson.getName());
-		System.out.println("Customer Info:");
-		System.out.printf("  %s (%s)\n", customer.getCustomerName(), customer.getCustomerUuid());
-		System.out.printf("  %s\n", primaryContact.getName());
-		System.out.printf("  %s\n  %s %s %s %s\n", address.getStreet(), address.getCity(), state.getStateName(),
-				address.getZip(), country.getCountryName());
-		System.out.println("----------------------------------------");
-		System.out.printf("%-13s %-86s %-12s %s\n%-12s %-86s %-12s %s\n", "Code", "Item", "Fees", "Total", "-----",
-				"------", "------", "-------");
+		ReportWriter out = ReportWriter.toSystemOut();
+		printDetailIndiv(invoice, salesPerson, customer, primaryContact, address, state, country, out);
+		out.flush();
+	}
+
+	public static void printDetailIndiv(Invoice invoice, Person salesPerson, Customer customer, Person primaryContact, Address address,
+			State state, Country country, ReportWriter out) {
+		out.append("Invoice ").append(invoice.getInvoiceUuid()).newLine();
+		out.append("=================").newLine();
+		out.append("Salesperson: ").append(salesPerson.getName()).newLine();
+		out.append("Customer Info:").newLine();
+		out.append("  ").append(customer.getCustomerName()).append(" (").append(customer.getCustomerUuid())
+				.append(")\n");
+		out.append("  ").append(primaryContact.getName()).append('\n');
+		out.append("  ").append(address.getStreet()).append("\n  ").append(address.getCity()).append(' ')
+				.append(state.getStateName()).append(' ').append(address.getZip()).append(' ')
+				.append(country.getCountryName()).append('\n');
+		out.append("----------------------------------------").newLine();
+		out.append(DETAIL_HEADER);
 	}
 
 }
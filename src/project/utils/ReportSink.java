@@ -0,0 +1,185 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This interface is where a ReportWriter sends the text of a report
+ */
+package project.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Takes the text a {@link ReportWriter} has buffered up, a whole buffer at a
+ * time. {@link PrintStreamSink} writes to a PrintStream such as System.out,
+ * {@link ChannelSink} encodes to a file channel or any other byte channel or
+ * stream, and {@link MemorySink} keeps the text in memory.
+ */
+public interface ReportSink extends Closeable, Flushable {
+
+	public void write(char[] chars, int offset, int length) throws IOException;
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Writes to a PrintStream, which encodes the text the way its own print
+	 * methods do. Closing the sink only flushes it, so System.out stays open.
+	 */
+	public static class PrintStreamSink implements ReportSink {
+		private final PrintStream out;
+
+		public PrintStreamSink(PrintStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(char[] chars, int offset, int length) {
+			out.append(CharBuffer.wrap(chars, offset, length));
+		}
+
+		@Override
+		public void flush() {
+			out.flush();
+		}
+
+		@Override
+		public void close() {
+			out.flush();
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Encodes the text with one reused encoder and byte buffer and writes it to a
+	 * channel. Flushing a sink made by toStream flushes the stream, flushing
+	 * other sinks does nothing as the channel has every write already. Neither
+	 * forces a file to disk, call force for that. Closing the sink closes the
+	 * channel.
+	 */
+	public static class ChannelSink implements ReportSink {
+		private final WritableByteChannel channel;
+		// The stream under the channel, which Channels.newChannel never flushes itself. Null if none.
+		private final OutputStream stream;
+		private final CharsetEncoder encoder;
+		private final ByteBuffer bytes;
+
+		public ChannelSink(WritableByteChannel channel, Charset charset, int bufferSize) {
+			this(channel, null, charset, bufferSize);
+		}
+
+		private ChannelSink(WritableByteChannel channel, OutputStream stream, Charset charset, int bufferSize) {
+			this.channel = channel;
+			this.stream = stream;
+			this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.bytes = ByteBuffer.allocate(Math.max(bufferSize, 64));
+		}
+
+		// Creates (or empties) the file and writes the report to it in the default charset.
+		public static ChannelSink toFile(Path file) throws IOException {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			return new ChannelSink(channel, Charset.defaultCharset(), 64 * 1024);
+		}
+
+		// Writes the report to the stream in the default charset.
+		public static ChannelSink toStream(OutputStream out) {
+			return new ChannelSink(Channels.newChannel(out), out, Charset.defaultCharset(), 64 * 1024);
+		}
+
+		// The ReportWriter never splits a surrogate pair between two writes, so each write is encoded
+		// on its own.
+		@Override
+		public void write(char[] chars, int offset, int length) throws IOException {
+			CharBuffer in = CharBuffer.wrap(chars, offset, length);
+			encoder.reset();
+			CoderResult result = null;
+			do {
+				result = encoder.encode(in, bytes, true);
+				if (result.isOverflow()) {
+					drain();
+				}
+			} while (result.isOverflow());
+			do {
+				result = encoder.flush(bytes);
+				if (result.isOverflow()) {
+					drain();
+				}
+			} while (result.isOverflow());
+			drain();
+		}
+
+		private void drain() throws IOException {
+			bytes.flip();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			bytes.clear();
+		}
+
+		// Every write is already handed to the channel, so only a stream under it has anything to flush.
+		@Override
+		public void flush() throws IOException {
+			if (stream != null) {
+				stream.flush();
+			}
+		}
+
+		// This method forces a file channel's writes to disk, for a caller that needs the report to
+		// survive a crash. It only flushes any other channel.
+		public void force() throws IOException {
+			if (channel instanceof FileChannel) {
+				((FileChannel) channel).force(false);
+			} else {
+				flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Keeps the report in memory, e.g. to send it somewhere else or compare it.
+	 */
+	public static class MemorySink implements ReportSink {
+		private final StringBuilder text = new StringBuilder();
+
+		@Override
+		public void write(char[] chars, int offset, int length) {
+			text.append(chars, offset, length);
+		}
+
+		public String getText() {
+			return text.toString();
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
@@ -0,0 +1,267 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class writes the text of the reports through one reused buffer
+ */
+package project.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.Formatter;
+import java.util.Locale;
+
+/**
+ * Builds the report text in a char buffer that is sized once and reused, and
+ * hands it to a {@link ReportSink} whenever it fills up and on flush, instead of
+ * going through String.format and System.out for every line. The padding and
+ * the "%N.2f" numbers are written by hand and come out the same as
+ * String.format would write them:
+ * <ul>
+ * <li>padRight and padLeft are "%-Ns" and "%Ns"</li>
+ * <li>appendDecimal is "%N.2f" and appendInt is "%d"</li>
+ * </ul>
+ * appendDecimal only writes the number itself when it is exactly some number of
+ * cents, as the amounts are after Math.round(x * 100.00) / 100.00, and the
+ * default locale writes numbers with '.' and '0'. Anything else goes through a
+ * reused Formatter, so the output is always the same as before.
+ */
+public class ReportWriter implements Closeable, Flushable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+	private static final String[] DECIMAL_FORMATS = new String[32];
+	// Above this amounts are not all a whole number of cents apart, so they are left to the Formatter.
+	private static final double MAX_PLAIN_DECIMAL = 1e12;
+
+	private final ReportSink sink;
+	private final char[] buffer;
+	private int length = 0;
+	private long flushed = 0;
+
+	private final boolean plainDigits;
+	private final StringBuilder scratch = new StringBuilder(64);
+	private final Formatter formatter;
+	private final char[] digits = new char[24];
+
+	public ReportWriter(ReportSink sink) {
+		this(sink, DEFAULT_BUFFER_SIZE);
+	}
+
+	public ReportWriter(ReportSink sink, int bufferSize) {
+		if (bufferSize < 2) {
+			throw new IllegalArgumentException("bufferSize must be at least 2, not " + bufferSize);
+		}
+		this.sink = sink;
+		this.buffer = new char[bufferSize];
+		Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		this.plainDigits = symbols.getDecimalSeparator() == '.' && symbols.getZeroDigit() == '0';
+		this.formatter = new Formatter(scratch, locale);
+	}
+
+	// Returns a writer to the standard output.
+	public static ReportWriter toSystemOut() {
+		return new ReportWriter(new ReportSink.PrintStreamSink(System.out));
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Appends the string, "null" for null like string concatenation.
+	public ReportWriter append(String value) {
+		if (value == null) {
+			value = "null";
+		}
+		int from = 0;
+		while (from < value.length()) {
+			if (length == buffer.length) {
+				writeBuffer(true);
+			}
+			int count = Math.min(value.length() - from, buffer.length - length);
+			value.getChars(from, from + count, buffer, length);
+			length += count;
+			from += count;
+		}
+		return this;
+	}
+
+	public ReportWriter append(CharSequence value) {
+		return append(value == null ? null : value.toString());
+	}
+
+	public ReportWriter append(char c) {
+		if (length == buffer.length) {
+			writeBuffer(true);
+		}
+		buffer[length++] = c;
+		return this;
+	}
+
+	// Appends the line separator, like println.
+	public ReportWriter newLine() {
+		return append(LINE_SEPARATOR);
+	}
+
+	// Appends the given number of spaces.
+	public ReportWriter spaces(int count) {
+		for (int i = 0; i < count; i++) {
+			append(' ');
+		}
+		return this;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Appends the value followed by spaces up to width chars, the same as "%-Ns".
+	public ReportWriter padRight(Object value, int width) {
+		String text = String.valueOf(value);
+		append(text);
+		return spaces(width - text.length());
+	}
+
+	// Appends spaces and then the value so it ends at width chars, the same as "%Ns".
+	public ReportWriter padLeft(Object value, int width) {
+		String text = String.valueOf(value);
+		spaces(width - text.length());
+		return append(text);
+	}
+
+	// Returns how many chars have been appended so far, for padTo.
+	public long getPosition() {
+		return flushed + length;
+	}
+
+	// Appends spaces until width chars have been appended since the given position, so a value
+	// built from several appends can be padded like "%-Ns".
+	public ReportWriter padTo(long start, int width) {
+		return spaces((int) (start + width - getPosition()));
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// Appends the number the same as "%d".
+	public ReportWriter appendInt(long value) {
+		if (!plainDigits) {
+			return format("%d", value);
+		}
+		int start = digits.length;
+		long rest = Math.abs(value);
+		do {
+			digits[--start] = (char) ('0' + (int) Math.abs(rest % 10));
+			rest /= 10;
+		} while (rest != 0);
+		if (value < 0) {
+			digits[--start] = '-';
+		}
+		return appendDigits(start, 0);
+	}
+
+	/**
+	 * Appends the number with two decimals, right aligned in width chars, the
+	 * same as "%width.2f". Width 0 is "%.2f".
+	 * 
+	 * @param value
+	 * @param width
+	 * @return this writer
+	 */
+	public ReportWriter appendDecimal(double value, int width) {
+		if (plainDigits && Math.abs(value) < MAX_PLAIN_DECIMAL) {
+			long cents = Math.round(value * 100.0);
+			// -0.0 is written "-0.00", which the cents can not tell from 0.0.
+			if (cents / 100.0 == value && Double.doubleToRawLongBits(value) != Long.MIN_VALUE) {
+				int start = digits.length;
+				long rest = Math.abs(cents);
+				digits[--start] = (char) ('0' + rest % 10);
+				rest /= 10;
+				digits[--start] = (char) ('0' + rest % 10);
+				rest /= 10;
+				digits[--start] = '.';
+				do {
+					digits[--start] = (char) ('0' + rest % 10);
+					rest /= 10;
+				} while (rest != 0);
+				if (cents < 0) {
+					digits[--start] = '-';
+				}
+				return appendDigits(start, width);
+			}
+		}
+		return format(decimalFormat(width), value);
+	}
+
+	private ReportWriter appendDigits(int start, int width) {
+		spaces(width - (digits.length - start));
+		for (int i = start; i < digits.length; i++) {
+			append(digits[i]);
+		}
+		return this;
+	}
+
+	private static String decimalFormat(int width) {
+		if (width < 0 || width >= DECIMAL_FORMATS.length) {
+			return "%" + (width > 0 ? width : "") + ".2f";
+		}
+		String format = DECIMAL_FORMATS[width];
+		if (format == null) {
+			format = "%" + (width > 0 ? width : "") + ".2f";
+			DECIMAL_FORMATS[width] = format;
+		}
+		return format;
+	}
+
+	// Appends the arguments formatted with a reused Formatter, for anything the methods above do not cover.
+	public ReportWriter format(String format, Object... args) {
+		scratch.setLength(0);
+		formatter.format(format, args);
+		return append(scratch);
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// This method hands everything appended so far to the sink and flushes it.
+	@Override
+	public void flush() {
+		try {
+			writeBuffer(false);
+			sink.flush();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// This method flushes and closes the sink.
+	@Override
+	public void close() {
+		try {
+			flush();
+		} finally {
+			try {
+				sink.close();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	// This method hands the buffer to the sink. When the buffer is only full, a high surrogate at the
+	// end is kept back until the low one that goes with it has been appended, so the sink does not
+	// get half a char.
+	private void writeBuffer(boolean keepSurrogate) {
+		int count = length;
+		if (keepSurrogate && count > 1 && Character.isHighSurrogate(buffer[count - 1])) {
+			count--;
+		}
+		try {
+			sink.write(buffer, 0, count);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		flushed += count;
+		System.arraycopy(buffer, count, buffer, 0, length - count);
+		length -= count;
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This interface is where the domain objects are looked up from
+ */
+package project.utils;
+
+import java.util.List;
+
+import project.lib.Address;
+import project.lib.Country;
+import project.lib.Customer;
+import project.lib.Email;
+import project.lib.Invoice;
+import project.lib.Person;
+import project.lib.Product;
+import project.lib.State;
+
+/**
+ * The lookups behind the static getXByKey and getAllX methods of the domain
+ * classes. {@link JdbcRepository} reads them from the database and
+ * {@link InMemoryRepository} holds them in memory. The one in use is chosen by
+ * {@link RepositoryFactory}. The ByKey lookups throw an IllegalStateException
+ * when there is no row with the given key.
+ */
+public interface Repository {
+
+	public Invoice getInvoiceByKey(int invoiceKey);
+
+	public List<Invoice> getAllInvoices();
+
+	public Customer getCustomerByKey(int customerKey);
+
+	public List<Customer> getAllCustomers();
+
+	public Person getPersonByKey(int personKey);
+
+	public List<Person> getAllPersons();
+
+	public Product getProductByKey(int productKey);
+
+	public List<Product> getAllProducts();
+
+	public Address getAddressByKey(int addressKey);
+
+	public State getStateByKey(int stateKey);
+
+	public Country getCountryByKey(int countryKey);
+
+	public Email getEmailByKey(int emailKey);
+
+	public List<String> getPersonEmailList(int personKey);
+
+}
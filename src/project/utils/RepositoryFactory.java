@@ -0,0 +1,38 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class holds the repository the domain classes read from
+ */
+package project.utils;
+
+public class RepositoryFactory {
+
+	// -Dcinco.repository=memory reads the .dat files in -Dcinco.dataDir (default "data") instead of the database.
+	private static volatile Repository repository = createDefault();
+
+	private static Repository createDefault() {
+		if ("memory".equalsIgnoreCase(System.getProperty("cinco.repository"))) {
+			return new InMemoryRepository().loadDataFiles(System.getProperty("cinco.dataDir", "data"));
+		}
+		return new JdbcRepository();
+	}
+
+	public static Repository getRepository() {
+		return repository;
+	}
+
+	// This method swaps the repository, e.g. to an InMemoryRepository filled for a benchmark.
+	public static void setRepository(Repository repository) {
+		if (repository == null) {
+			throw new IllegalArgumentException("repository must not be null");
+		}
+		RepositoryFactory.repository = repository;
+	}
+
+	// Returns true if the lookups go to the database.
+	public static boolean usesDatabase() {
+		return repository instanceof JdbcRepository;
+	}
+
+}
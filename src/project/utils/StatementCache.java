@@ -0,0 +1,196 @@
+/**
+ * Author: Matt Hotovy
+ * Date: 10/18/2026
+ *
+ * This class caches the prepared statements of one pooled connection
+ */
+package project.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the parsed statements of a pooled connection keyed by their SQL, least
+ * recently used first. A connection is only used by one caller at a time, so the
+ * cache itself is not thread safe.
+ */
+class StatementCache {
+
+	private final Connection connection;
+	private final Connection owner;
+	private final int maxSize;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<String, CachedStatement>(16,
+			0.75f, true);
+
+	// The counters are shared by every connection in the pool.
+	StatementCache(Connection connection, Connection owner, int maxSize, AtomicLong hits, AtomicLong misses) {
+		this.connection = connection;
+		this.owner = owner;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns a statement for the given SQL. Closing it hands the statement back to
+	 * the cache instead of closing it. Returns null when the statement for this SQL
+	 * is already in use, so the caller should prepare an uncached one.
+	 *
+	 * @param sql
+	 * @return the cached statement or null
+	 * @throws SQLException
+	 */
+	PreparedStatement prepare(String sql) throws SQLException {
+		CachedStatement cached = statements.get(sql);
+		if (cached != null) {
+			if (cached.inUse) {
+				misses.incrementAndGet();
+				return null;
+			}
+			hits.incrementAndGet();
+			return cached.checkOut();
+		}
+
+		misses.incrementAndGet();
+		PreparedStatement statement = connection.prepareStatement(sql);
+		try {
+			cached = new CachedStatement(statement);
+		} catch (SQLException e) {
+			statement.close();
+			throw e;
+		}
+		statements.put(sql, cached);
+		evict();
+		return cached.checkOut();
+	}
+
+	// This method hands back every statement when the connection is returned to the pool.
+	void checkInAll() throws SQLException {
+		for (CachedStatement cached : statements.values()) {
+			if (cached.inUse) {
+				cached.checkIn();
+			}
+		}
+	}
+
+	// This method closes the least recently used statements that are not in use.
+	private void evict() throws SQLException {
+		Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+		while (statements.size() > maxSize && it.hasNext()) {
+			CachedStatement cached = it.next().getValue();
+			if (!cached.inUse) {
+				it.remove();
+				cached.statement.close();
+			}
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	// A parsed statement held by the cache between uses.
+	private class CachedStatement {
+
+		private final PreparedStatement statement;
+		// The settings the statement was prepared with, put back when a caller changed them.
+		private final int fetchSize;
+		private final long maxRows;
+		private final int queryTimeout;
+		private Handle current;
+		private boolean inUse;
+
+		CachedStatement(PreparedStatement statement) throws SQLException {
+			this.statement = statement;
+			this.fetchSize = statement.getFetchSize();
+			this.maxRows = statement.getLargeMaxRows();
+			this.queryTimeout = statement.getQueryTimeout();
+		}
+
+		PreparedStatement checkOut() {
+			inUse = true;
+			current = new Handle(this);
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, current);
+		}
+
+		// This method clears anything the last caller left behind on the statement, including
+		// settings such as a streaming fetch size that would change what the next caller reads.
+		void checkIn() throws SQLException {
+			current.closed = true;
+			current = null;
+			inUse = false;
+			statement.clearParameters();
+			statement.clearBatch();
+			statement.clearWarnings();
+			if (statement.getFetchSize() != fetchSize) {
+				statement.setFetchSize(fetchSize);
+			}
+			if (statement.getLargeMaxRows() != maxRows) {
+				statement.setLargeMaxRows(maxRows);
+			}
+			if (statement.getQueryTimeout() != queryTimeout) {
+				statement.setQueryTimeout(queryTimeout);
+			}
+		}
+	}
+
+//------------------------------------------------------------------------------------------------------
+
+	/**
+	 * What one caller sees of a cached statement. Each checkout gets its own handle
+	 * so a stale reference can never close a statement someone else is using.
+	 */
+	private class Handle implements InvocationHandler {
+
+		private final CachedStatement cached;
+		private boolean closed = false;
+
+		Handle(CachedStatement cached) {
+			this.cached = cached;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			int argCount = args == null ? 0 : args.length;
+			if (name.equals("close") && argCount == 0) {
+				if (!closed) {
+					cached.checkIn();
+				}
+				return null;
+			} else if (name.equals("isClosed") && argCount == 0) {
+				return closed;
+			} else if (name.equals("getConnection") && argCount == 0) {
+				return owner;
+			} else if (name.equals("equals") && argCount == 1) {
+				return proxy == args[0];
+			} else if (name.equals("hashCode") && argCount == 0) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("toString") && argCount == 0) {
+				return "Cached " + cached.statement;
+			}
+
+			if (closed) {
+				throw new SQLException("Statement is closed");
+			}
+			try {
+				return method.invoke(cached.statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+}